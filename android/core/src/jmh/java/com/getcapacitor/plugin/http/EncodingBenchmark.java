@@ -0,0 +1,72 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encoding and decoding steps on their own, without any I/O
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EncodingBenchmark {
+    @Param({ "1024", "65536" })
+    public int size;
+
+    private URL url;
+    private JSONObject params;
+    private JSONObject data;
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws MalformedURLException, JSONException {
+        url = new URL("https://example.com/api/items?page=1");
+        params = new JSONObject();
+        data = new JSONObject();
+        for (int i = 0; i < 16; i++) {
+            params.put("param" + i, "value" + i);
+            data.put("field" + i, "value with spaces & symbols " + i);
+        }
+        json = LocalServer.makeJson(size);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public URL appendParams() {
+        return RequestEncoder.appendParams(url, params);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws JSONException, UnsupportedEncodingException {
+        return RequestEncoder.encodeBody("application/json", data);
+    }
+
+    @Benchmark
+    public byte[] encodeForm() throws JSONException, UnsupportedEncodingException {
+        return RequestEncoder.encodeBody("application/x-www-form-urlencoded", data);
+    }
+
+    @Benchmark
+    public boolean scanJson() {
+        return JsonScanner.isValid(json);
+    }
+
+    @Benchmark
+    public String base64() {
+        return Base64Encoder.encode(bytes, 0, bytes.length);
+    }
+}
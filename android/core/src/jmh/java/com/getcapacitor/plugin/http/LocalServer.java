@@ -0,0 +1,86 @@
+package com.getcapacitor.plugin.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process HTTP server for the benchmarks, so that no network is involved.
+ *
+ * GET /body answers with the payload, any request to /drain reads the
+ * request body and answers with 204.
+ */
+class LocalServer {
+    private final HttpServer server;
+
+    LocalServer(final byte[] payload, final String contentType) throws IOException {
+        // Without it small responses wait for the delayed ACK of the client
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext(
+            "/body",
+            new HttpHandler() {
+
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    exchange.getResponseHeaders().add("Content-Type", contentType);
+                    exchange.getResponseHeaders().add("Cache-Control", "no-store");
+                    exchange.sendResponseHeaders(200, payload.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(payload);
+                    out.close();
+                }
+            }
+        );
+        server.createContext(
+            "/drain",
+            new HttpHandler() {
+
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    InputStream in = exchange.getRequestBody();
+                    byte[] buffer = new byte[64 * 1024];
+                    while (in.read(buffer) != -1) {
+                        // Discard
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                    exchange.close();
+                }
+            }
+        );
+        server.start();
+    }
+
+    URL url(String path) throws IOException {
+        return new URL("http", "127.0.0.1", server.getAddress().getPort(), path);
+    }
+
+    void stop() {
+        server.stop(0);
+        ((java.util.concurrent.ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    /**
+     * A JSON array of objects of roughly the given size in bytes
+     */
+    static String makeJson(int size) {
+        StringBuilder builder = new StringBuilder(size + 128);
+        builder.append('[');
+        for (int i = 0; builder.length() < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(i).append(",\"name\":\"item ").append(i);
+            builder.append("\",\"price\":").append(i * 1.25).append(",\"tags\":[\"a\",\"b\\u00e9\"],\"active\":true}");
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,74 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reads and decodes a JSON response from a local server the way a request
+ * does, for the different response types
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResponseBenchmark {
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    private LocalServer server;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] payload = LocalServer.makeJson(size).getBytes(StandardCharsets.UTF_8);
+        server = new LocalServer(payload, "application/json; charset=utf-8");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public Object json() throws IOException, JSONException {
+        return fetch(null, false);
+    }
+
+    @Benchmark
+    public Object rawJson() throws IOException, JSONException {
+        return fetch(ResponseType.JSON, true);
+    }
+
+    @Benchmark
+    public Object text() throws IOException, JSONException {
+        return fetch(ResponseType.TEXT, false);
+    }
+
+    @Benchmark
+    public Object arraybuffer() throws IOException, JSONException {
+        return fetch(ResponseType.ARRAY_BUFFER, false);
+    }
+
+    private Object fetch(ResponseType responseType, boolean rawJson) throws IOException, JSONException {
+        HttpURLConnection conn = (HttpURLConnection) server.url("/body").openConnection();
+        conn.setUseCaches(false);
+        conn.getResponseCode();
+        ResponseDecoder.getHeaders(conn);
+        // Reading the body to the end closes the stream and keeps the connection alive
+        InputStream in = conn.getInputStream();
+        ResponseReader.Body body = ResponseReader.read(in, ResponseReader.parseContentLength(conn.getHeaderField("Content-Length")));
+        return ResponseDecoder.decode(body, conn.getHeaderField("Content-Type"), responseType, rawJson);
+    }
+}
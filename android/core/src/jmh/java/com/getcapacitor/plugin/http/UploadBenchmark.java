@@ -0,0 +1,67 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Streams a multipart body with a file part to a local server
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UploadBenchmark {
+    @Param({ "65536", "4194304" })
+    public int size;
+
+    private LocalServer server;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new LocalServer(new byte[0], "text/plain");
+
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        file = File.createTempFile("upload", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+        file.delete();
+    }
+
+    @Benchmark
+    public int multipart() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) server.url("/drain").openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+
+        FormUploader uploader = new FormUploader(conn);
+        uploader.addFormField("description", "benchmark upload");
+        uploader.addFilePart("file", file);
+        uploader.finish();
+
+        return conn.getResponseCode();
+    }
+}
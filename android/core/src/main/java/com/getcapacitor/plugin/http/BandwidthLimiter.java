@@ -0,0 +1,100 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.InterruptedIOException;
+
+/**
+ * A token bucket that limits the throughput of transfers. Transfers acquire
+ * bytes before they send or store them and wait while the bucket is empty.
+ *
+ * The bucket holds up to one second of data. A transfer may take more than
+ * is left as long as the bucket isn't empty, later transfers then wait until
+ * the debt is paid off. A limiter can have a parent, such as one shared by
+ * several transfers, and then waits for both.
+ */
+public class BandwidthLimiter {
+    public static final long UNLIMITED = 0;
+
+    // Waits are cut short to pick up a changed limit without a notification
+    private static final long MAX_WAIT_MS = 100;
+
+    private final BandwidthLimiter parent;
+    private long bytesPerSecond;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param bytesPerSecond the limit, or {@link #UNLIMITED}
+     * @param parent a limiter to wait for as well, or null
+     */
+    public BandwidthLimiter(long bytesPerSecond, BandwidthLimiter parent) {
+        this.parent = parent;
+        setBytesPerSecond(bytesPerSecond);
+    }
+
+    public synchronized long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Changes the limit, transfers waiting on the limiter pick it up at once
+     *
+     * @param bytesPerSecond the limit, or {@link #UNLIMITED}
+     */
+    public synchronized void setBytesPerSecond(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("bytesPerSecond < 0: " + bytesPerSecond);
+        }
+        refill();
+        this.bytesPerSecond = bytesPerSecond;
+        tokens = Math.min(tokens, bytesPerSecond);
+        if (bytesPerSecond == UNLIMITED) {
+            tokens = 0;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until the bytes may be transferred
+     *
+     * @param count the number of bytes about to be transferred
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public void acquire(int count) throws InterruptedIOException {
+        take(count);
+        if (parent != null) {
+            parent.acquire(count);
+        }
+    }
+
+    private synchronized void take(int count) throws InterruptedIOException {
+        while (bytesPerSecond != UNLIMITED) {
+            refill();
+            if (tokens > 0) {
+                tokens -= count;
+                return;
+            }
+            long waitMs = (long) Math.ceil(-tokens * 1000 / bytesPerSecond);
+            try {
+                wait(Math.max(1, Math.min(waitMs, MAX_WAIT_MS)));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+            }
+        }
+    }
+
+    private void refill() {
+        long now = nanoTime();
+        if (lastRefill != 0 && bytesPerSecond != UNLIMITED) {
+            tokens = Math.min(bytesPerSecond, tokens + (now - lastRefill) * bytesPerSecond / 1e9);
+        }
+        lastRefill = now;
+    }
+
+    /**
+     * The clock the bucket is refilled by, replaced in tests
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,36 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * Encodes bytes as standard base64 with padding and without line breaks
+ */
+public class Base64Encoder {
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    /**
+     * @param data the bytes
+     * @param offset the index of the first byte to encode
+     * @param length the number of bytes to encode
+     * @return the base64 text
+     */
+    public static String encode(byte[] data, int offset, int length) {
+        char[] out = new char[(length + 2) / 3 * 4];
+        int end = offset + length - length % 3;
+        int o = 0;
+        for (int i = offset; i < end; i += 3) {
+            int bits = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff);
+            out[o++] = ALPHABET[bits >>> 18];
+            out[o++] = ALPHABET[(bits >>> 12) & 0x3f];
+            out[o++] = ALPHABET[(bits >>> 6) & 0x3f];
+            out[o++] = ALPHABET[bits & 0x3f];
+        }
+        int remaining = length % 3;
+        if (remaining > 0) {
+            int bits = (data[end] & 0xff) << 16 | (remaining == 2 ? (data[end + 1] & 0xff) << 8 : 0);
+            out[o++] = ALPHABET[bits >>> 18];
+            out[o++] = ALPHABET[(bits >>> 12) & 0x3f];
+            out[o++] = remaining == 2 ? ALPHABET[(bits >>> 6) & 0x3f] : '=';
+            out[o] = '=';
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,121 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes base64 text as it is read, so the decoded bytes are never held in
+ * memory as a whole. Both the standard and the URL safe alphabet are
+ * accepted, whitespace is skipped and a "data:...;base64," prefix is ignored.
+ */
+public class Base64InputStream extends InputStream {
+    private static final int[] VALUES = new int[128];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            VALUES[alphabet.charAt(i)] = i;
+        }
+        VALUES['-'] = 62;
+        VALUES['_'] = 63;
+    }
+
+    private final CharSequence data;
+    private int position;
+    private int bits;
+    private int bitCount;
+
+    public Base64InputStream(CharSequence data) {
+        this.data = data;
+        this.position = getStart(data);
+    }
+
+    /**
+     * Computes the number of decoded bytes without decoding
+     *
+     * @param data the base64 text
+     * @return the decoded length
+     * @throws IllegalArgumentException if the text isn't valid base64
+     */
+    public static long decodedLength(CharSequence data) {
+        long count = 0;
+        for (int i = getStart(data); i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (!isWhitespace(c)) {
+                if (c >= VALUES.length || VALUES[c] == -1) {
+                    throw new IllegalArgumentException("Invalid base64 character at " + i);
+                }
+                count++;
+            }
+        }
+        if (count % 4 == 1) {
+            throw new IllegalArgumentException("Invalid base64 length");
+        }
+        return count * 6 / 8;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (bitCount < 8) {
+            int value = next();
+            if (value == -1) {
+                return -1;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+        }
+        bitCount -= 8;
+        return (bits >> bitCount) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length) {
+            int b = read();
+            if (b == -1) {
+                break;
+            }
+            buffer[offset + count++] = (byte) b;
+        }
+        return count == 0 && length > 0 ? -1 : count;
+    }
+
+    private int next() throws IOException {
+        while (position < data.length()) {
+            char c = data.charAt(position++);
+            if (c == '=') {
+                position = data.length();
+                return -1;
+            }
+            if (!isWhitespace(c)) {
+                if (c >= VALUES.length || VALUES[c] == -1) {
+                    throw new IOException("Invalid base64 character at " + (position - 1));
+                }
+                return VALUES[c];
+            }
+        }
+        return -1;
+    }
+
+    private static int getStart(CharSequence data) {
+        if (data.length() > 5 && "data:".contentEquals(data.subSequence(0, 5))) {
+            for (int i = 5; i < data.length(); i++) {
+                if (data.charAt(i) == ',') {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
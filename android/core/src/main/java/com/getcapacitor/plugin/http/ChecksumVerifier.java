@@ -0,0 +1,129 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Computes the digest of a download as it is written and compares it with
+ * the expected value, given by the caller or taken from the Digest or
+ * Content-MD5 response header.
+ */
+public class ChecksumVerifier {
+    public static final String SHA_256 = "SHA-256";
+    public static final String MD5 = "MD5";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+    private final byte[] expected;
+
+    private String actual;
+    private boolean matches;
+
+    /**
+     * @param algorithm SHA-256 or MD5
+     * @param expected the expected digest as hex or base64, or null to only compute it
+     */
+    public ChecksumVerifier(String algorithm, String expected) {
+        if (!SHA_256.equalsIgnoreCase(algorithm) && !MD5.equalsIgnoreCase(algorithm)) {
+            throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm);
+        }
+        try {
+            this.digest = MessageDigest.getInstance(algorithm.toUpperCase(Locale.ROOT));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm, ex);
+        }
+        this.expected = expected != null ? decode(expected, digest.getDigestLength()) : null;
+    }
+
+    /**
+     * Finds the expected digest in the response headers. Digest (RFC 3230)
+     * is preferred, Content-MD5 is used for MD5 if there is no Digest.
+     *
+     * @param algorithm SHA-256 or MD5
+     * @param digestHeader the Digest header, may be null
+     * @param contentMd5Header the Content-MD5 header, may be null
+     * @return the base64 digest, or null if the headers have none for the algorithm
+     */
+    public static String getExpected(String algorithm, String digestHeader, String contentMd5Header) {
+        String name = SHA_256.equalsIgnoreCase(algorithm) ? "sha-256" : "md5";
+        if (digestHeader != null) {
+            for (String instance : digestHeader.split(",")) {
+                int eq = instance.indexOf('=');
+                if (eq != -1 && instance.substring(0, eq).trim().equalsIgnoreCase(name)) {
+                    return instance.substring(eq + 1).trim();
+                }
+            }
+        }
+        if (MD5.equalsIgnoreCase(algorithm) && contentMd5Header != null) {
+            return contentMd5Header.trim();
+        }
+        return null;
+    }
+
+    public void update(byte[] buffer, int offset, int length) {
+        digest.update(buffer, offset, length);
+    }
+
+    /**
+     * Completes the digest and compares it with the expected one. Later
+     * calls return the same result.
+     *
+     * @return the digest as hex
+     * @throws MismatchException if it doesn't match
+     */
+    public String verify() throws MismatchException {
+        if (actual == null) {
+            byte[] bytes = digest.digest();
+            actual = toHex(bytes);
+            matches = expected == null || Arrays.equals(expected, bytes);
+        }
+        if (!matches) {
+            throw new MismatchException(digest.getAlgorithm(), actual);
+        }
+        return actual;
+    }
+
+    private static byte[] decode(String value, int length) {
+        value = value.trim();
+        if (value.length() == length * 2 && value.matches("[0-9a-fA-F]+")) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16);
+            }
+            return bytes;
+        }
+        try {
+            // The length is exact, a single read fills the array
+            byte[] bytes = new byte[(int) Base64InputStream.decodedLength(value)];
+            new Base64InputStream(value).read(bytes);
+            return bytes;
+        } catch (IllegalArgumentException | IOException ex) {
+            throw new IllegalArgumentException("Checksum is neither hex nor base64: " + value, ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The downloaded data doesn't have the expected digest
+     */
+    public static class MismatchException extends IOException {
+        private static final long serialVersionUID = 1L;
+        public static final String CODE = "CHECKSUM_MISMATCH";
+
+        MismatchException(String algorithm, String actual) {
+            super(algorithm + " checksum mismatch, got " + actual);
+        }
+    }
+}
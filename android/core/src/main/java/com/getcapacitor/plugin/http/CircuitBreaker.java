@@ -0,0 +1,116 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fails requests to a host fast while it appears to be down.
+ *
+ * After a number of consecutive failures the circuit of the host opens and
+ * requests to it fail immediately. Once the reset timeout has passed a single
+ * trial request is let through: if it succeeds the circuit closes again,
+ * otherwise it stays open for another timeout.
+ */
+public class CircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_RESET_TIMEOUT = 30000;
+
+    private final Map<String, HostState> hosts = new HashMap<>();
+    private final int failureThreshold;
+    private final long resetTimeout;
+
+    /**
+     * @param failureThreshold the consecutive failures that open the circuit, or 0 to never open it
+     * @param resetTimeout how long the circuit stays open before a trial request in milliseconds
+     */
+    public CircuitBreaker(int failureThreshold, long resetTimeout) {
+        this.failureThreshold = failureThreshold;
+        this.resetTimeout = resetTimeout;
+    }
+
+    /**
+     * Checks whether a request to the host may be made. Each successful call
+     * must be followed by {@link #recordSuccess}, {@link #recordFailure} or
+     * {@link #release}.
+     *
+     * @param host the host of the request
+     * @throws CircuitOpenException if the circuit of the host is open
+     */
+    public synchronized void acquire(String host) throws CircuitOpenException {
+        HostState state = hosts.get(host);
+        if (state == null || state.openedAt < 0) {
+            return;
+        }
+        long remaining = state.openedAt + resetTimeout - currentTimeMillis();
+        if (remaining <= 0 && !state.trialInFlight) {
+            state.trialInFlight = true;
+            return;
+        }
+        throw new CircuitOpenException(host, Math.max(remaining, 0));
+    }
+
+    /**
+     * The host answered
+     */
+    public synchronized void recordSuccess(String host) {
+        hosts.remove(host);
+    }
+
+    /**
+     * The host couldn't be reached or reported that it's unavailable
+     */
+    public synchronized void recordFailure(String host) {
+        if (failureThreshold < 1) {
+            return;
+        }
+        HostState state = hosts.get(host);
+        if (state == null) {
+            state = new HostState();
+            hosts.put(host, state);
+        }
+        state.trialInFlight = false;
+        if (++state.failures >= failureThreshold) {
+            state.openedAt = currentTimeMillis();
+        }
+    }
+
+    /**
+     * The request ended without telling anything about the host
+     */
+    public synchronized void release(String host) {
+        HostState state = hosts.get(host);
+        if (state != null) {
+            state.trialInFlight = false;
+        }
+    }
+
+    /**
+     * The clock the reset timeout is measured with, replaced in tests
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Whether a response code means the host is unavailable, as opposed to
+     * the request being refused
+     */
+    public static boolean isUnavailable(int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    private static class HostState {
+        int failures;
+        long openedAt = -1;
+        boolean trialInFlight;
+    }
+
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException(String host, long retryIn) {
+            super("Requests to " + host + " are failing, not retrying for " + retryIn + " ms");
+        }
+    }
+}
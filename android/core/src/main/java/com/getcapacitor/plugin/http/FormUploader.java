@@ -0,0 +1,289 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class FormUploader {
+    private static final String LINE_FEED = "\r\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String boundary;
+    private HttpURLConnection httpConn;
+    private Charset charset = StandardCharsets.UTF_8;
+    private OutputStream outputStream;
+    private ProgressEmitter progressEmitter;
+    private BandwidthLimiter bandwidthLimiter;
+    private final List<Part> parts = new ArrayList<>();
+    private byte[] buffer;
+    private boolean prepared;
+    private long bytesWritten;
+
+    /**
+     * This constructor initializes a new HTTP POST request with content type
+     * is set to multipart/form-data. Nothing is sent until {@link #finish()}
+     * is called.
+     *
+     * @param conn
+     */
+    public FormUploader(HttpURLConnection conn) {
+        UUID uuid = UUID.randomUUID();
+        boundary = uuid.toString();
+        httpConn = conn;
+
+        httpConn.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+    }
+
+    /**
+     * Reports the bytes of the request body as they are written
+     *
+     * @param progressEmitter the emitter, or null for no progress reporting
+     */
+    public void setProgressEmitter(ProgressEmitter progressEmitter) {
+        this.progressEmitter = progressEmitter;
+    }
+
+    /**
+     * Limits how fast the request body is sent
+     *
+     * @param bandwidthLimiter the limiter, or null for no limit
+     */
+    public void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    /**
+     * Adds a form field to the request
+     *
+     * @param name  field name
+     * @param value field value
+     */
+    public void addFormField(String name, String value) {
+        String headers = "Content-Disposition: form-data; name=\"" + name + "\"" + LINE_FEED +
+            "Content-Type: text/plain; charset=" + charset.name() + LINE_FEED;
+        parts.add(new FieldPart(headers, value.getBytes(charset)));
+    }
+
+    /**
+     * Adds a upload file section to the request
+     *
+     * @param fieldName  name attribute in <input type="file" name="..." />
+     * @param uploadFile a File to be uploaded
+     * @throws FileNotFoundException
+     */
+    public void addFilePart(String fieldName, File uploadFile) throws FileNotFoundException {
+        if (!uploadFile.isFile()) {
+            throw new FileNotFoundException(uploadFile.getAbsolutePath());
+        }
+        parts.add(new FilePart(fileHeaders(fieldName, uploadFile.getName(), null), uploadFile));
+    }
+
+    /**
+     * Adds a file section with base64 encoded content. The content is
+     * decoded while it is sent.
+     *
+     * @param fieldName name attribute in <input type="file" name="..." />
+     * @param fileName the file name sent to the server
+     * @param contentType the content type, or null to guess it from the file name
+     * @param chunks the content, each chunk encoded on its own
+     * @throws IllegalArgumentException if a chunk isn't valid base64
+     */
+    public void addDataPart(String fieldName, String fileName, String contentType, List<String> chunks) {
+        long length = 0;
+        for (String chunk : chunks) {
+            length += Base64InputStream.decodedLength(chunk);
+        }
+        parts.add(new DataPart(fileHeaders(fieldName, fileName, contentType), chunks, length));
+    }
+
+    /**
+     * The exact size of the multipart body, or -1 if a part has an unknown size
+     */
+    public long getContentLength() {
+        long length = 0;
+        for (Part part : parts) {
+            long partLength = part.length();
+            if (partLength < 0) {
+                return -1;
+            }
+            length += ("--" + boundary + LINE_FEED + part.headers + LINE_FEED).getBytes(charset).length;
+            length += partLength;
+            length += LINE_FEED.length();
+        }
+        length += ("--" + boundary + "--" + LINE_FEED).length();
+        return length;
+    }
+
+    /**
+     * Sets up the connection to stream the body. The body is sent with a
+     * fixed length when the size of every part is known and in chunks
+     * otherwise, so it is never buffered in memory as a whole. Must be called
+     * before the connection is connected, {@link #finish()} calls it if needed.
+     */
+    public void prepare() {
+        if (prepared) {
+            return;
+        }
+        long contentLength = getContentLength();
+        if (contentLength >= 0) {
+            httpConn.setFixedLengthStreamingMode(contentLength);
+        } else {
+            httpConn.setChunkedStreamingMode(0);
+        }
+        if (progressEmitter != null) {
+            progressEmitter.setContentLength(contentLength);
+        }
+        prepared = true;
+    }
+
+    /**
+     * The number of body bytes sent so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Streams the body to the server
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        prepare();
+
+        buffer = new byte[BUFFER_SIZE];
+        outputStream = httpConn.getOutputStream();
+        try {
+            for (Part part : parts) {
+                write("--" + boundary + LINE_FEED + part.headers + LINE_FEED);
+                part.writeBody(this);
+                write(LINE_FEED);
+            }
+            write("--" + boundary + "--" + LINE_FEED);
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private String fileHeaders(String fieldName, String fileName, String contentType) {
+        if (contentType == null) {
+            contentType = URLConnection.guessContentTypeFromName(fileName);
+        }
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+        return "Content-Disposition: form-data; name=\"" + fieldName + "\"; filename=\"" + fileName + "\"" + LINE_FEED +
+            "Content-Type: " + contentType + LINE_FEED;
+    }
+
+    private void write(String value) throws IOException {
+        byte[] bytes = value.getBytes(charset);
+        write(bytes, 0, bytes.length);
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        if (bandwidthLimiter != null) {
+            bandwidthLimiter.acquire(length);
+        }
+        outputStream.write(bytes, offset, length);
+        bytesWritten += length;
+        if (progressEmitter != null) {
+            progressEmitter.add(length);
+        }
+    }
+
+    private void copy(InputStream inputStream) throws IOException {
+        try {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                write(buffer, 0, bytesRead);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private abstract static class Part {
+        final String headers;
+
+        Part(String headers) {
+            this.headers = headers;
+        }
+
+        abstract long length();
+
+        abstract void writeBody(FormUploader uploader) throws IOException;
+    }
+
+    private static class FieldPart extends Part {
+        private final byte[] value;
+
+        FieldPart(String headers, byte[] value) {
+            super(headers);
+            this.value = value;
+        }
+
+        @Override
+        long length() {
+            return value.length;
+        }
+
+        @Override
+        void writeBody(FormUploader uploader) throws IOException {
+            uploader.write(value, 0, value.length);
+        }
+    }
+
+    private static class FilePart extends Part {
+        private final File file;
+
+        FilePart(String headers, File file) {
+            super(headers);
+            this.file = file;
+        }
+
+        @Override
+        long length() {
+            return file.length();
+        }
+
+        @Override
+        void writeBody(FormUploader uploader) throws IOException {
+            uploader.copy(new FileInputStream(file));
+        }
+    }
+
+    private static class DataPart extends Part {
+        private final List<String> chunks;
+        private final long length;
+
+        DataPart(String headers, List<String> chunks, long length) {
+            super(headers);
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        @Override
+        long length() {
+            return length;
+        }
+
+        @Override
+        void writeBody(FormUploader uploader) throws IOException {
+            for (String chunk : chunks) {
+                uploader.copy(new Base64InputStream(chunk));
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * Checks that text is well-formed JSON without building any objects, so large
+ * payloads can be handed to the WebView unparsed.
+ */
+public class JsonScanner {
+    private static final String[] LITERALS = { "true", "false", "null" };
+
+    /**
+     * @param text the text to check
+     * @return true if the text is a single JSON value, optionally surrounded by whitespace
+     */
+    public static boolean isValid(CharSequence text) {
+        int n = text.length();
+        char[] stack = new char[16];
+        int depth = 0;
+        boolean expectValue = true;
+        int i = skipWhitespace(text, 0);
+
+        while (true) {
+            if (expectValue) {
+                if (i >= n) {
+                    return false;
+                }
+                char c = text.charAt(i);
+                if (c == '{' || c == '[') {
+                    if (depth == stack.length) {
+                        char[] grown = new char[stack.length * 2];
+                        System.arraycopy(stack, 0, grown, 0, depth);
+                        stack = grown;
+                    }
+                    stack[depth++] = c;
+                    i = skipWhitespace(text, i + 1);
+                    char close = c == '{' ? '}' : ']';
+                    if (i < n && text.charAt(i) == close) {
+                        depth--;
+                        i++;
+                        expectValue = false;
+                    } else if (c == '{') {
+                        i = scanKey(text, i);
+                        if (i < 0) {
+                            return false;
+                        }
+                    }
+                    continue;
+                } else if (c == '"') {
+                    i = scanString(text, i);
+                } else if (c == '-' || (c >= '0' && c <= '9')) {
+                    i = scanNumber(text, i);
+                } else {
+                    i = scanLiteral(text, i);
+                }
+                if (i < 0) {
+                    return false;
+                }
+                expectValue = false;
+            } else {
+                i = skipWhitespace(text, i);
+                if (depth == 0) {
+                    return i == n;
+                }
+                if (i >= n) {
+                    return false;
+                }
+                char c = text.charAt(i);
+                char top = stack[depth - 1];
+                if (c == ',') {
+                    i = skipWhitespace(text, i + 1);
+                    if (top == '{') {
+                        i = scanKey(text, i);
+                        if (i < 0) {
+                            return false;
+                        }
+                    }
+                    expectValue = true;
+                } else if ((c == '}' && top == '{') || (c == ']' && top == '[')) {
+                    depth--;
+                    i++;
+                } else {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static int skipWhitespace(CharSequence text, int i) {
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Scans an object key and the colon after it
+     *
+     * @return the index of the value, or -1 if invalid
+     */
+    private static int scanKey(CharSequence text, int i) {
+        if (i >= text.length() || text.charAt(i) != '"') {
+            return -1;
+        }
+        i = scanString(text, i);
+        if (i < 0) {
+            return -1;
+        }
+        i = skipWhitespace(text, i);
+        if (i >= text.length() || text.charAt(i) != ':') {
+            return -1;
+        }
+        return skipWhitespace(text, i + 1);
+    }
+
+    private static int scanString(CharSequence text, int i) {
+        int n = text.length();
+        i++;
+        while (i < n) {
+            char c = text.charAt(i++);
+            if (c == '"') {
+                return i;
+            } else if (c == '\\') {
+                if (i >= n) {
+                    return -1;
+                }
+                char escaped = text.charAt(i++);
+                if (escaped == 'u') {
+                    if (i + 4 > n) {
+                        return -1;
+                    }
+                    for (int end = i + 4; i < end; i++) {
+                        if (Character.digit(text.charAt(i), 16) == -1) {
+                            return -1;
+                        }
+                    }
+                } else if ("\"\\/bfnrt".indexOf(escaped) == -1) {
+                    return -1;
+                }
+            } else if (c < 0x20) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int scanNumber(CharSequence text, int i) {
+        int n = text.length();
+        if (text.charAt(i) == '-') {
+            i++;
+        }
+        if (i < n && text.charAt(i) == '0') {
+            i++;
+        } else {
+            int start = i;
+            i = scanDigits(text, i);
+            if (i == start) {
+                return -1;
+            }
+        }
+        if (i < n && text.charAt(i) == '.') {
+            int start = ++i;
+            i = scanDigits(text, i);
+            if (i == start) {
+                return -1;
+            }
+        }
+        if (i < n && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < n && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            int start = i;
+            i = scanDigits(text, i);
+            if (i == start) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static int scanDigits(CharSequence text, int i) {
+        while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int scanLiteral(CharSequence text, int i) {
+        for (String literal : LITERALS) {
+            if (regionMatches(text, i, literal)) {
+                return i + literal.length();
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int i, String literal) {
+        if (i + literal.length() > text.length()) {
+            return false;
+        }
+        for (int j = 0; j < literal.length(); j++) {
+            if (text.charAt(i + j) != literal.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * Counts transferred bytes and reports them to a listener, at most once per
+ * interval and only after enough new bytes arrived, so that fast transfers
+ * don't flood the bridge with events.
+ */
+public class ProgressEmitter {
+    public static final long DEFAULT_MIN_INTERVAL_MS = 200;
+    public static final long DEFAULT_MIN_BYTES = 64 * 1024;
+
+    public interface Listener {
+        void onProgress(long bytes, long contentLength);
+    }
+
+    private final Listener listener;
+    private final long minIntervalMs;
+    private final long minBytes;
+
+    private long contentLength;
+    private long bytes;
+    private long lastBytes;
+    private long lastTime;
+
+    public ProgressEmitter(long contentLength, Listener listener) {
+        this(contentLength, DEFAULT_MIN_INTERVAL_MS, DEFAULT_MIN_BYTES, listener);
+    }
+
+    public ProgressEmitter(long contentLength, long minIntervalMs, long minBytes, Listener listener) {
+        this.contentLength = contentLength;
+        this.minIntervalMs = minIntervalMs;
+        this.minBytes = minBytes;
+        this.listener = listener;
+    }
+
+    /**
+     * Updates the expected total once it is known
+     *
+     * @param contentLength the total in bytes, or -1 if unknown
+     */
+    public synchronized void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Records transferred bytes. Safe to call from several threads at once.
+     *
+     * @param count the number of bytes transferred since the last call
+     */
+    public synchronized void add(long count) {
+        bytes += count;
+
+        long now = System.currentTimeMillis();
+        if (now - lastTime >= minIntervalMs && bytes - lastBytes >= minBytes) {
+            emit(now);
+        }
+    }
+
+    /**
+     * Reports the final byte count if it hasn't been reported yet
+     */
+    public synchronized void complete() {
+        if (bytes != lastBytes || lastTime == 0) {
+            emit(System.currentTimeMillis());
+        }
+    }
+
+    private void emit(long now) {
+        lastTime = now;
+        lastBytes = bytes;
+        listener.onProgress(bytes, contentLength);
+    }
+}
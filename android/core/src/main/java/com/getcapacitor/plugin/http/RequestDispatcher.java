@@ -0,0 +1,213 @@
+package com.getcapacitor.plugin.http;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs plugin calls on a pool of worker threads so that one slow request
+ * doesn't hold up every other call made through the plugin.
+ *
+ * Tasks are started by priority and, within a priority, in the order they
+ * were enqueued, as long as neither the global limit nor the limit for the
+ * task's host has been reached. Background tasks have a lower limit of their
+ * own so that bulk transfers can't take up every slot. Tasks that can't start
+ * yet wait in a queue and are promoted as running tasks finish.
+ */
+public class RequestDispatcher {
+    public static final int DEFAULT_MAX_REQUESTS = 64;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 6;
+    public static final int DEFAULT_MAX_BACKGROUND_REQUESTS = 4;
+
+    private final List<Deque<Task>> readyTasks = new ArrayList<>();
+    private final List<Task> runningTasks = new ArrayList<>();
+    private final ExecutorService executorService;
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxBackgroundRequests;
+
+    public RequestDispatcher(int maxRequests, int maxRequestsPerHost, int maxBackgroundRequests) {
+        this(maxRequests, maxRequestsPerHost, maxBackgroundRequests, newExecutorService());
+    }
+
+    /**
+     * @param executorService runs the tasks once they are promoted, tests pass one that defers them
+     */
+    RequestDispatcher(int maxRequests, int maxRequestsPerHost, int maxBackgroundRequests, ExecutorService executorService) {
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
+        }
+        if (maxRequestsPerHost < 1) {
+            throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+        }
+        if (maxBackgroundRequests < 1) {
+            throw new IllegalArgumentException("maxBackgroundRequests < 1: " + maxBackgroundRequests);
+        }
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.maxBackgroundRequests = maxBackgroundRequests;
+        for (int i = 0; i < RequestPriority.values().length; i++) {
+            readyTasks.add(new ArrayDeque<Task>());
+        }
+        this.executorService = executorService;
+    }
+
+    private static ExecutorService newExecutorService() {
+        return new ThreadPoolExecutor(
+            0,
+            Integer.MAX_VALUE,
+            60,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "CapacitorHttp-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+    }
+
+    /**
+     * Schedules a task to run against the given host
+     *
+     * @param host the host the task connects to, used for the per-host limit
+     * @param priority the priority of the task
+     * @param runnable the work to run on a worker thread
+     */
+    public void enqueue(String host, RequestPriority priority, Runnable runnable) {
+        synchronized (this) {
+            readyTasks.get(priority.ordinal()).add(new Task(host != null ? host : "", priority, runnable));
+        }
+        promoteAndExecute();
+    }
+
+    /**
+     * Reserves slots for work a running task spreads over several
+     * connections, such as the segments of a download. Never waits, fewer
+     * slots or none are reserved if the limits don't allow more, and none
+     * while other tasks are queued.
+     *
+     * @param host the host the connections go to
+     * @param priority the priority of the running task
+     * @param count the number of slots wanted
+     * @return the number of slots reserved, to be given back with {@link #release}
+     */
+    public synchronized int reserve(String host, RequestPriority priority, int count) {
+        for (Deque<Task> tasks : readyTasks) {
+            if (!tasks.isEmpty()) {
+                return 0;
+            }
+        }
+        host = host != null ? host : "";
+        int reserved = 0;
+        while (
+            reserved < count &&
+            runningTasks.size() < maxRequests &&
+            runningTasksForHost(host) < maxRequestsPerHost &&
+            (priority != RequestPriority.BACKGROUND || runningBackgroundTasks() < maxBackgroundRequests)
+        ) {
+            runningTasks.add(new Task(host, priority, null));
+            reserved++;
+        }
+        return reserved;
+    }
+
+    /**
+     * Gives back slots taken with {@link #reserve}
+     */
+    public void release(String host, RequestPriority priority, int count) {
+        synchronized (this) {
+            host = host != null ? host : "";
+            Iterator<Task> i = runningTasks.iterator();
+            while (count > 0 && i.hasNext()) {
+                Task task = i.next();
+                if (task.runnable == null && task.host.equals(host) && task.priority == priority) {
+                    i.remove();
+                    count--;
+                }
+            }
+        }
+        promoteAndExecute();
+    }
+
+    private void promoteAndExecute() {
+        List<Task> executableTasks = new ArrayList<>();
+
+        synchronized (this) {
+            for (Deque<Task> tasks : readyTasks) {
+                Iterator<Task> i = tasks.iterator();
+                while (i.hasNext() && runningTasks.size() < maxRequests) {
+                    Task task = i.next();
+                    if (task.priority == RequestPriority.BACKGROUND && runningBackgroundTasks() >= maxBackgroundRequests) break;
+                    if (runningTasksForHost(task.host) >= maxRequestsPerHost) continue;
+
+                    i.remove();
+                    runningTasks.add(task);
+                    executableTasks.add(task);
+                }
+            }
+        }
+
+        for (Task task : executableTasks) {
+            executorService.execute(task);
+        }
+    }
+
+    private int runningTasksForHost(String host) {
+        int result = 0;
+        for (Task task : runningTasks) {
+            if (task.host.equals(host)) result++;
+        }
+        return result;
+    }
+
+    private int runningBackgroundTasks() {
+        int result = 0;
+        for (Task task : runningTasks) {
+            if (task.priority == RequestPriority.BACKGROUND) result++;
+        }
+        return result;
+    }
+
+    private void finished(Task task) {
+        synchronized (this) {
+            runningTasks.remove(task);
+        }
+        promoteAndExecute();
+    }
+
+    private class Task implements Runnable {
+        private final String host;
+        private final RequestPriority priority;
+        private final Runnable runnable;
+
+        Task(String host, RequestPriority priority, Runnable runnable) {
+            this.host = host;
+            this.priority = priority;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runnable.run();
+            } finally {
+                finished(this);
+            }
+        }
+    }
+}
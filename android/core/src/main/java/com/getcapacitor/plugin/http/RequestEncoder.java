@@ -0,0 +1,105 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Encodes the parts of a request that don't depend on how it is sent: the
+ * query string and the body.
+ */
+public class RequestEncoder {
+
+    /**
+     * Appends params to the query of a URL
+     *
+     * @param url the URL, which may have a query already
+     * @param params the params to append
+     * @return the new URL, or the given one if the result isn't a valid URL
+     */
+    public static URL appendParams(URL url, JSONObject params) {
+        StringBuilder query = null;
+        if (url.getQuery() != null) {
+            query = new StringBuilder(url.getQuery());
+        }
+        Iterator<String> keys = params.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            String value = params.optString(key);
+            if (query == null) {
+                query = new StringBuilder();
+            } else {
+                query.append('&');
+            }
+            query.append(key).append('=').append(value);
+        }
+        if (query == null) {
+            return url;
+        }
+        try {
+            URI uri = url.toURI();
+            URI newUri = new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), query.toString(), uri.getFragment());
+            return newUri.toURL();
+        } catch (URISyntaxException | MalformedURLException e) {
+            return url;
+        }
+    }
+
+    /**
+     * Encodes the body of a JSON or form request
+     *
+     * @param contentType the Content-Type of the request, may be null
+     * @param data the body data, may be null
+     * @return the body, or null if it isn't a JSON or form body
+     * @throws JSONException
+     * @throws UnsupportedEncodingException
+     */
+    public static byte[] encodeBody(String contentType, JSONObject data) throws JSONException, UnsupportedEncodingException {
+        if (contentType == null || data == null) {
+            return null;
+        }
+        if (contentType.contains("application/json")) {
+            return data.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        if (contentType.contains("application/x-www-form-urlencoded")) {
+            StringBuilder builder = new StringBuilder();
+
+            Iterator<String> keys = data.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Object d = data.get(key);
+                if (d != null) {
+                    builder.append(key).append('=').append(URLEncoder.encode(d.toString(), "UTF-8"));
+                    if (keys.hasNext()) {
+                        builder.append('&');
+                    }
+                }
+            }
+
+            return builder.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    /**
+     * Adds every entry of the data as a form field
+     *
+     * @param uploader the multipart body
+     * @param data the fields
+     * @throws JSONException
+     */
+    public static void addFormFields(FormUploader uploader, JSONObject data) throws JSONException {
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            uploader.addFormField(key, data.get(key).toString());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * The order in which queued calls are started. Calls of a higher priority
+ * start before any queued call of a lower one, calls of the same priority
+ * start in the order they were made.
+ */
+public enum RequestPriority {
+    CRITICAL("critical"),
+    NORMAL("normal"),
+    BACKGROUND("background");
+
+    private final String name;
+
+    RequestPriority(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Looks up a priority by its name in HttpOptions
+     *
+     * @param name the priority option, may be null
+     * @param defaultPriority the priority used if the option isn't set
+     * @return the matching priority
+     */
+    public static RequestPriority parse(String name, RequestPriority defaultPriority) {
+        if (name == null) {
+            return defaultPriority;
+        }
+        for (RequestPriority priority : values()) {
+            if (priority.name.equalsIgnoreCase(name)) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("Unknown priority: " + name);
+    }
+}
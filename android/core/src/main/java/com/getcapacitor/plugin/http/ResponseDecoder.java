@@ -0,0 +1,84 @@
+package com.getcapacitor.plugin.http;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Turns response headers and bodies into the values handed to the WebView
+ */
+public class ResponseDecoder {
+
+    /**
+     * Lists the response headers as objects with a single key each. The
+     * values of a header are joined, each followed by a comma.
+     *
+     * @param conn the connection with the response
+     * @return the headers
+     */
+    public static JSONArray getHeaders(HttpURLConnection conn) {
+        JSONArray ret = new JSONArray();
+
+        for (Map.Entry<String, List<String>> entries : conn.getHeaderFields().entrySet()) {
+            JSONObject header = new JSONObject();
+
+            // The status line has no name and is listed as an empty object
+            if (entries.getKey() != null) {
+                StringBuilder val = new StringBuilder();
+                for (String headerVal : entries.getValue()) {
+                    val.append(headerVal).append(", ");
+                }
+
+                try {
+                    header.put(entries.getKey(), val.toString());
+                } catch (JSONException ex) {
+                    // Not reachable with a non-null name
+                }
+            }
+            ret.put(header);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Decodes a response body
+     *
+     * @param body the body
+     * @param contentType the Content-Type of the response, may be null
+     * @param responseType the requested type, or null to infer it from the Content-Type
+     * @param rawJson whether JSON is returned as text instead of being parsed
+     * @return a base64 string for binary types, the parsed value for JSON, or the text
+     * @throws JSONException if a JSON body is malformed
+     */
+    public static Object decode(ResponseReader.Body body, String contentType, ResponseType responseType, boolean rawJson)
+        throws JSONException {
+        if (responseType == null) {
+            boolean isJson = contentType != null && contentType.contains("application/json");
+            responseType = isJson ? ResponseType.JSON : ResponseType.TEXT;
+        }
+
+        if (responseType.isBinary()) {
+            return Base64Encoder.encode(body.buffer(), 0, body.size());
+        }
+
+        String text = body.toString(ResponseReader.getCharset(contentType));
+
+        if (responseType == ResponseType.JSON) {
+            if (rawJson) {
+                // Hand the text over as is, the WebView parses it once with JSON.parse
+                if (!JsonScanner.isValid(text)) {
+                    throw new JSONException("Response is not valid JSON");
+                }
+                return text;
+            }
+            return new JSONTokener(text).nextValue();
+        }
+
+        return text;
+    }
+}
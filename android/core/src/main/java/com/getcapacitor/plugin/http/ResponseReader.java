@@ -0,0 +1,210 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * Reads response bodies byte for byte, so binary payloads and line based
+ * formats like NDJSON come back exactly as the server sent them.
+ */
+public class ResponseReader {
+    private static final int BUFFER_SIZE = 8192;
+    // Content-Length only sizes the buffer up to this, a larger body grows it as it arrives
+    private static final int MAX_INITIAL_SIZE = 1024 * 1024;
+
+    /**
+     * Reads the whole stream into memory and closes it.
+     *
+     * @param in the response stream
+     * @param contentLength the expected length in bytes, or -1 if unknown
+     * @return the body
+     * @throws IOException
+     */
+    public static Body read(InputStream in, long contentLength) throws IOException {
+        Body body = new Body(getInitialSize(contentLength));
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                body.write(buffer, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+        return body;
+    }
+
+    /**
+     * Reads the stream into memory, or into a file once it is larger than
+     * maxMemorySize, and closes it. The bytes read so far are moved to the
+     * file so that a large body is never held in memory as a whole.
+     *
+     * @param in the response stream
+     * @param contentLength the expected length in bytes, or -1 if unknown
+     * @param maxMemorySize the largest body kept in memory
+     * @param file the file a larger body is written to, it is deleted if reading fails
+     * @return the body, {@link Body#getFile()} is set if it was written to the file
+     * @throws IOException
+     */
+    public static Body read(InputStream in, long contentLength, long maxMemorySize, File file) throws IOException {
+        boolean spill = contentLength > maxMemorySize;
+        Body body = new Body(spill ? BUFFER_SIZE : getInitialSize(contentLength));
+        FileOutputStream out = null;
+        boolean complete = false;
+        try {
+            if (spill) {
+                out = body.spill(file);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                if (out == null && body.size() + len > maxMemorySize) {
+                    out = body.spill(file);
+                }
+                if (out != null) {
+                    out.write(buffer, 0, len);
+                } else {
+                    body.write(buffer, 0, len);
+                }
+            }
+            complete = true;
+        } finally {
+            in.close();
+            if (out != null) {
+                out.close();
+                if (!complete) {
+                    file.delete();
+                }
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Whether a response can have a body. Responses to HEAD and with status
+     * 1xx, 204 or 304 never do, whatever their Content-Length says.
+     *
+     * @param method the request method
+     * @param statusCode the response code
+     */
+    public static boolean hasBody(String method, int statusCode) {
+        return !"HEAD".equals(method) && statusCode >= 200 && statusCode != 204 && statusCode != 304;
+    }
+
+    /**
+     * The body of a response that has none
+     */
+    public static Body empty() {
+        return new Body(0);
+    }
+
+    private static int getInitialSize(long contentLength) {
+        return contentLength >= 0 ? (int) Math.min(contentLength, MAX_INITIAL_SIZE) : BUFFER_SIZE;
+    }
+
+    /**
+     * Parses the Content-Length header value
+     *
+     * @param value the header value, may be null
+     * @return the length, or -1 if missing or invalid
+     */
+    public static long parseContentLength(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Finds the charset parameter of a Content-Type header, falling back to UTF-8
+     *
+     * @param contentType the header value, may be null
+     */
+    public static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String trimmed = param.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String name = trimmed.substring(8).trim();
+                    if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+                        name = name.substring(1, name.length() - 1);
+                    }
+                    try {
+                        return Charset.forName(name);
+                    } catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * A response body held in memory. The backing array is exposed so it can
+     * be decoded or encoded without another copy.
+     */
+    public static class Body extends ByteArrayOutputStream {
+        private File file;
+
+        Body(int size) {
+            super(size);
+        }
+
+        /**
+         * The backing array, only the first {@link #size()} bytes are valid
+         */
+        public byte[] buffer() {
+            return buf;
+        }
+
+        public String toString(Charset charset) {
+            return new String(buf, 0, count, charset);
+        }
+
+        /**
+         * The file the body was written to instead, or null if it is in memory
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * The size of the body in bytes, in memory or in the file
+         */
+        public long length() {
+            return file != null ? file.length() : count;
+        }
+
+        /**
+         * Moves the bytes held in memory to the file
+         *
+         * @return the stream the rest of the body is written to
+         */
+        FileOutputStream spill(File file) throws IOException {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                writeTo(out);
+            } catch (IOException ex) {
+                out.close();
+                file.delete();
+                throw ex;
+            }
+            this.file = file;
+            buf = new byte[0];
+            count = 0;
+            return out;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * How the body of a response is handed back to the WebView
+ */
+public enum ResponseType {
+    ARRAY_BUFFER("arraybuffer"),
+    BLOB("blob"),
+    JSON("json"),
+    TEXT("text");
+
+    private final String name;
+
+    ResponseType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * True if the body is binary and has to be base64 encoded to cross the bridge
+     */
+    public boolean isBinary() {
+        return this == ARRAY_BUFFER || this == BLOB;
+    }
+
+    /**
+     * Looks up a response type by its name in HttpOptions
+     *
+     * @param name the responseType option, may be null
+     * @return the matching type, or null if the type should be inferred from the Content-Type
+     */
+    public static ResponseType parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (ResponseType type : values()) {
+            if (type.name.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown responseType: " + name);
+    }
+}
@@ -0,0 +1,155 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+/**
+ * Decides whether a failed attempt is retried and how long to wait before
+ * the next one.
+ *
+ * Delays grow exponentially and are jittered over the whole interval, so
+ * clients that failed together don't retry together. Requests with a
+ * method that isn't idempotent are only retried if the request can't have
+ * reached the server, unless retrying them is allowed explicitly.
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_DELAY = 500;
+    public static final long DEFAULT_MAX_DELAY = 30000;
+    public static final Set<Integer> DEFAULT_STATUS_CODES = Collections.unmodifiableSet(
+        new HashSet<>(Arrays.asList(408, 429, 500, 502, 503, 504))
+    );
+
+    /**
+     * Makes a single attempt
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, Collections.<Integer>emptySet(), false);
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+
+    private final int maxAttempts;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final Set<Integer> statusCodes;
+    private final boolean retryNonIdempotent;
+    private final Random random = new Random();
+
+    /**
+     * @param maxAttempts the number of attempts including the first one
+     * @param initialDelay the longest delay before the second attempt in milliseconds
+     * @param maxDelay the upper bound for any delay in milliseconds
+     * @param statusCodes the response codes that are retried
+     * @param retryNonIdempotent whether requests like POST are retried after they may have reached the server
+     */
+    public RetryPolicy(int maxAttempts, long initialDelay, long maxDelay, Set<Integer> statusCodes, boolean retryNonIdempotent) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts < 1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.statusCodes = statusCodes;
+        this.retryNonIdempotent = retryNonIdempotent;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @param method the request method
+     * @param statusCode the response code of the attempt
+     * @return whether another attempt should be made
+     */
+    public boolean shouldRetry(int attempt, String method, int statusCode) {
+        return attempt < maxAttempts && statusCodes.contains(statusCode) && (retryNonIdempotent || isIdempotent(method));
+    }
+
+    /**
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @param method the request method
+     * @param ex the error of the attempt
+     * @return whether another attempt should be made
+     */
+    public boolean shouldRetry(int attempt, String method, IOException ex) {
+        if (attempt >= maxAttempts || !isRetryable(ex)) {
+            return false;
+        }
+        return retryNonIdempotent || isIdempotent(method) || !wasSent(ex);
+    }
+
+    /**
+     * Returns the time to wait before the next attempt. A Retry-After header
+     * given in seconds is honored, up to the maximum delay.
+     *
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @param retryAfter the Retry-After header of the response, or null
+     * @return the delay in milliseconds
+     */
+    public long getDelay(int attempt, String retryAfter) {
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Math.min(Long.parseLong(retryAfter.trim()) * 1000, maxDelay));
+            } catch (NumberFormatException ex) {
+                // An HTTP date, use the regular backoff
+            }
+        }
+        long ceiling = Math.min(initialDelay << Math.min(attempt - 1, 30), maxDelay);
+        if (ceiling <= 0) {
+            return 0;
+        }
+        synchronized (random) {
+            return (long) (random.nextDouble() * ceiling);
+        }
+    }
+
+    public static boolean isIdempotent(String method) {
+        return IDEMPOTENT_METHODS.contains(method);
+    }
+
+    private static boolean isRetryable(IOException ex) {
+        if (ex instanceof SocketTimeoutException) {
+            return true;
+        }
+        if (
+            ex instanceof InterruptedIOException ||
+            ex instanceof FileNotFoundException ||
+            ex instanceof MalformedURLException ||
+            ex instanceof ProtocolException ||
+            ex instanceof SSLPeerUnverifiedException ||
+            ex instanceof CircuitBreaker.CircuitOpenException
+        ) {
+            return false;
+        }
+        // A certificate the device doesn't trust won't be trusted on the next attempt either
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof CertificateException) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Errors that happen before a connection is established, so the server
+     * can't have seen the request
+     */
+    private static boolean wasSent(IOException ex) {
+        return !(ex instanceof ConnectException || ex instanceof UnknownHostException || ex instanceof NoRouteToHostException);
+    }
+}
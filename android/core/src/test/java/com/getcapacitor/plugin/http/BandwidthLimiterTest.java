@@ -0,0 +1,136 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class BandwidthLimiterTest {
+
+    /**
+     * A limiter whose clock only moves when the test advances it
+     */
+    static class TestBandwidthLimiter extends BandwidthLimiter {
+        // Read by the constructor, before the fields of the subclass are set
+        private static final long START = TimeUnit.SECONDS.toNanos(1);
+
+        private volatile long elapsed;
+
+        TestBandwidthLimiter(long bytesPerSecond, BandwidthLimiter parent) {
+            super(bytesPerSecond, parent);
+        }
+
+        @Override
+        long nanoTime() {
+            return START + elapsed;
+        }
+
+        void advance(long millis) {
+            elapsed += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+
+    /**
+     * Acquires on another thread, the latch opens once acquire returns
+     */
+    private static CountDownLatch acquireAsync(final BandwidthLimiter limiter, final int count) {
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread thread = new Thread(
+            new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        limiter.acquire(count);
+                        done.countDown();
+                    } catch (InterruptedIOException ex) {
+                        // The test ends without the latch opening
+                    }
+                }
+            }
+        );
+        thread.setDaemon(true);
+        thread.start();
+        return done;
+    }
+
+    /**
+     * The clock is frozen, so a blocked acquire can't return by itself and a
+     * short wait is enough to tell
+     */
+    private static void assertBlocked(CountDownLatch done) throws InterruptedException {
+        assertFalse(done.await(20, TimeUnit.MILLISECONDS));
+    }
+
+    private static void assertReleased(CountDownLatch done) throws InterruptedException {
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void unlimitedDoesNotWait() throws Exception {
+        BandwidthLimiter limiter = new TestBandwidthLimiter(BandwidthLimiter.UNLIMITED, null);
+        for (int i = 0; i < 1000; i++) {
+            limiter.acquire(1024 * 1024);
+        }
+    }
+
+    @Test
+    public void waitsForTokens() throws Exception {
+        TestBandwidthLimiter limiter = new TestBandwidthLimiter(1000, null);
+        CountDownLatch done = acquireAsync(limiter, 500);
+        assertBlocked(done);
+        limiter.advance(250);
+        assertReleased(done);
+    }
+
+    @Test
+    public void overdraftIsPaidOffBeforeNextTransfer() throws Exception {
+        TestBandwidthLimiter limiter = new TestBandwidthLimiter(1000, null);
+        limiter.advance(250);
+        // Takes 500 with 250 in the bucket, leaving a debt of 250
+        limiter.acquire(500);
+        CountDownLatch done = acquireAsync(limiter, 1);
+        limiter.advance(250);
+        assertBlocked(done);
+        limiter.advance(1);
+        assertReleased(done);
+    }
+
+    @Test
+    public void bucketHoldsOneSecond() throws Exception {
+        TestBandwidthLimiter limiter = new TestBandwidthLimiter(1000, null);
+        limiter.advance(10000);
+        limiter.acquire(1000);
+        CountDownLatch done = acquireAsync(limiter, 1);
+        assertBlocked(done);
+        limiter.advance(1);
+        assertReleased(done);
+    }
+
+    @Test
+    public void waitsForParent() throws Exception {
+        TestBandwidthLimiter parent = new TestBandwidthLimiter(1000, null);
+        BandwidthLimiter limiter = new TestBandwidthLimiter(BandwidthLimiter.UNLIMITED, parent);
+        CountDownLatch done = acquireAsync(limiter, 1);
+        assertBlocked(done);
+        parent.advance(1);
+        assertReleased(done);
+    }
+
+    @Test
+    public void liftingLimitReleasesWaiter() throws Exception {
+        TestBandwidthLimiter limiter = new TestBandwidthLimiter(1, null);
+        CountDownLatch done = acquireAsync(limiter, 1);
+        assertBlocked(done);
+        limiter.setBytesPerSecond(BandwidthLimiter.UNLIMITED);
+        assertReleased(done);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLimitIsRejected() {
+        new BandwidthLimiter(-1, null);
+    }
+}
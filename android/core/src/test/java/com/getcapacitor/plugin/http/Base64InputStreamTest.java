@@ -0,0 +1,76 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import org.junit.Test;
+
+public class Base64InputStreamTest {
+
+    private static byte[] decode(String data) throws Exception {
+        InputStream stream = new Base64InputStream(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3];
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertDecodes(String expected, String data) throws Exception {
+        byte[] bytes = expected.getBytes(Charset.forName("UTF-8"));
+        assertEquals(data, bytes.length, Base64InputStream.decodedLength(data));
+        assertArrayEquals(data, bytes, decode(data));
+    }
+
+    @Test
+    public void padding() throws Exception {
+        assertDecodes("abc", "YWJj");
+        assertDecodes("abcd", "YWJjZA==");
+        assertDecodes("abcde", "YWJjZGU=");
+    }
+
+    @Test
+    public void missingPadding() throws Exception {
+        assertDecodes("abcd", "YWJjZA");
+        assertDecodes("abcde", "YWJjZGU");
+    }
+
+    @Test
+    public void whitespaceAndLineBreaks() throws Exception {
+        assertDecodes("hello world", "aGVs bG8g\r\nd29y\tbGQ=\n");
+        assertDecodes("abcd", " YWJj\nZA= =\n");
+    }
+
+    @Test
+    public void empty() throws Exception {
+        assertDecodes("", "");
+        assertDecodes("", " \n");
+        assertDecodes("", "data:text/plain;base64,");
+    }
+
+    @Test
+    public void dataUrl() throws Exception {
+        assertDecodes("hello", "data:text/plain;base64,aGVsbG8=");
+    }
+
+    @Test
+    public void urlSafeAlphabet() throws Exception {
+        assertArrayEquals(new byte[] { (byte) 0xfb, (byte) 0xff }, decode("-_8="));
+        assertEquals(2, Base64InputStream.decodedLength("-_8="));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCharacter() {
+        Base64InputStream.decodedLength("YW*j");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLength() {
+        Base64InputStream.decodedLength("YWJjZ");
+    }
+}
@@ -0,0 +1,66 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.Charset;
+import org.junit.Test;
+
+public class ChecksumVerifierTest {
+    private static final byte[] DATA = "hello".getBytes(Charset.forName("UTF-8"));
+    private static final String SHA_256_HEX = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+    private static final String SHA_256_BASE64 = "LPJNul+wow4m6DsqxbninhsWHlwfp0JecwQzYpOLmCQ=";
+    private static final String MD5_BASE64 = "XUFAKrxLKna5cZ2REBfFkg==";
+
+    @Test
+    public void getExpectedPrefersDigestHeader() {
+        assertEquals("abc=", ChecksumVerifier.getExpected("SHA-256", "SHA-256=abc=", null));
+        assertEquals("abc=", ChecksumVerifier.getExpected("sha-256", "md5=xyz, sha-256=abc=", null));
+        assertEquals("xyz", ChecksumVerifier.getExpected("MD5", "MD5=xyz", "other"));
+    }
+
+    @Test
+    public void getExpectedFallsBackToContentMd5ForMd5Only() {
+        assertEquals("xyz", ChecksumVerifier.getExpected("MD5", "sha-256=abc=", " xyz "));
+        assertNull(ChecksumVerifier.getExpected("SHA-256", "md5=xyz", "xyz"));
+        assertNull(ChecksumVerifier.getExpected("SHA-256", null, null));
+        assertNull(ChecksumVerifier.getExpected("MD5", "unixsum=30637", null));
+    }
+
+    @Test
+    public void verifiesHexAndBase64() throws Exception {
+        for (String expected : new String[] { SHA_256_HEX, SHA_256_HEX.toUpperCase(), SHA_256_BASE64 }) {
+            ChecksumVerifier verifier = new ChecksumVerifier("SHA-256", expected);
+            verifier.update(DATA, 0, DATA.length);
+            assertEquals(SHA_256_HEX, verifier.verify());
+        }
+        ChecksumVerifier verifier = new ChecksumVerifier("md5", MD5_BASE64);
+        verifier.update(DATA, 0, DATA.length);
+        verifier.verify();
+    }
+
+    @Test
+    public void reportsMismatch() {
+        ChecksumVerifier verifier = new ChecksumVerifier("SHA-256", SHA_256_BASE64);
+        verifier.update(DATA, 0, DATA.length - 1);
+        for (int i = 0; i < 2; i++) {
+            try {
+                verifier.verify();
+                fail("Checksum matched");
+            } catch (ChecksumVerifier.MismatchException ex) {
+                // Expected, also on the second call
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidChecksum() {
+        new ChecksumVerifier("SHA-256", "not a checksum!");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedAlgorithm() {
+        new ChecksumVerifier("SHA-1", null);
+    }
+}
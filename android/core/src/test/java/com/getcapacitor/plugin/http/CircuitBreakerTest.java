@@ -0,0 +1,137 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+    private static final String HOST = "example.com";
+
+    /**
+     * A breaker whose clock only moves when the test advances it
+     */
+    static class TestCircuitBreaker extends CircuitBreaker {
+        long now = 1000;
+
+        TestCircuitBreaker(int failureThreshold, long resetTimeout) {
+            super(failureThreshold, resetTimeout);
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+
+        void failTimes(int times) throws Exception {
+            for (int i = 0; i < times; i++) {
+                acquire(HOST);
+                recordFailure(HOST);
+            }
+        }
+
+        boolean isOpen() {
+            try {
+                acquire(HOST);
+                release(HOST);
+                return false;
+            } catch (CircuitBreaker.CircuitOpenException ex) {
+                return true;
+            }
+        }
+    }
+
+    @Test
+    public void opensAfterThreshold() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(3, 30000);
+        breaker.failTimes(2);
+        assertFalse(breaker.isOpen());
+        breaker.failTimes(1);
+        assertTrue(breaker.isOpen());
+        breaker.acquire("other.example.com");
+    }
+
+    @Test
+    public void successResetsFailures() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(3, 30000);
+        breaker.failTimes(2);
+        breaker.acquire(HOST);
+        breaker.recordSuccess(HOST);
+        breaker.failTimes(2);
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void releaseDoesNotCountAsFailure() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(1, 30000);
+        for (int i = 0; i < 5; i++) {
+            breaker.acquire(HOST);
+            breaker.release(HOST);
+        }
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void zeroThresholdNeverOpens() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(0, 30000);
+        breaker.failTimes(100);
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void staysOpenUntilResetTimeout() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(1, 30000);
+        breaker.failTimes(1);
+        breaker.now += 29999;
+        assertTrue(breaker.isOpen());
+        breaker.now += 1;
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void halfOpenLetsSingleTrialThrough() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(1, 30000);
+        breaker.failTimes(1);
+        breaker.now += 30000;
+        breaker.acquire(HOST);
+        try {
+            breaker.acquire(HOST);
+            fail("Second trial let through");
+        } catch (CircuitBreaker.CircuitOpenException ex) {
+            // Expected while the trial is in flight
+        }
+        breaker.recordSuccess(HOST);
+        breaker.acquire(HOST);
+        breaker.acquire(HOST);
+    }
+
+    @Test
+    public void failedTrialReopens() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(1, 30000);
+        breaker.failTimes(1);
+        breaker.now += 30000;
+        breaker.acquire(HOST);
+        breaker.recordFailure(HOST);
+        assertTrue(breaker.isOpen());
+        breaker.now += 29999;
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    public void releasedTrialCanBeRetried() throws Exception {
+        TestCircuitBreaker breaker = new TestCircuitBreaker(1, 30000);
+        breaker.failTimes(1);
+        breaker.now += 30000;
+        breaker.acquire(HOST);
+        breaker.release(HOST);
+        breaker.acquire(HOST);
+    }
+
+    @Test
+    public void onlyUnavailableStatusCodesCount() {
+        assertTrue(CircuitBreaker.isUnavailable(503));
+        assertFalse(CircuitBreaker.isUnavailable(500));
+        assertFalse(CircuitBreaker.isUnavailable(429));
+    }
+}
@@ -0,0 +1,128 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FormUploaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Captures the request body instead of sending it
+     */
+    private static class FakeConnection extends HttpURLConnection {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        long fixedLength = -1;
+        boolean chunked;
+
+        FakeConnection() throws Exception {
+            super(new URL("http://example.com/upload"));
+        }
+
+        @Override
+        public void setFixedLengthStreamingMode(long contentLength) {
+            fixedLength = contentLength;
+        }
+
+        @Override
+        public void setChunkedStreamingMode(int chunkLength) {
+            chunked = true;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return body;
+        }
+
+        @Override
+        public void connect() {}
+
+        @Override
+        public void disconnect() {}
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+
+    private File createFile(String name, int size) throws Exception {
+        File file = folder.newFile(name);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+        return file;
+    }
+
+    private static void assertLengthMatches(FakeConnection conn, FormUploader uploader) throws Exception {
+        long expected = uploader.getContentLength();
+        uploader.finish();
+        assertEquals(expected, conn.fixedLength);
+        assertEquals(expected, conn.body.size());
+        assertEquals(expected, uploader.getBytesWritten());
+    }
+
+    @Test
+    public void lengthOfStringParts() throws Exception {
+        FakeConnection conn = new FakeConnection();
+        FormUploader uploader = new FormUploader(conn);
+        uploader.addFormField("name", "value");
+        uploader.addFormField("empty", "");
+        assertLengthMatches(conn, uploader);
+    }
+
+    @Test
+    public void lengthOfNonAsciiFields() throws Exception {
+        FakeConnection conn = new FakeConnection();
+        FormUploader uploader = new FormUploader(conn);
+        uploader.addFormField("pr\u00e9nom", "Zo\u00eb");
+        uploader.addFormField("\u540d\u524d", "\u5024 \ud83d\ude00");
+        assertLengthMatches(conn, uploader);
+    }
+
+    @Test
+    public void lengthOfFileParts() throws Exception {
+        FakeConnection conn = new FakeConnection();
+        FormUploader uploader = new FormUploader(conn);
+        uploader.addFormField("description", "two files");
+        uploader.addFilePart("file", createFile("data.bin", 200 * 1024));
+        uploader.addFilePart("fichier", createFile("r\u00e9sum\u00e9.txt", 0));
+        assertLengthMatches(conn, uploader);
+    }
+
+    @Test
+    public void lengthOfDataParts() throws Exception {
+        FakeConnection conn = new FakeConnection();
+        FormUploader uploader = new FormUploader(conn);
+        uploader.addDataPart("data", "hello.txt", null, Collections.singletonList("aGVsbG8="));
+        uploader.addDataPart("donn\u00e9es", "bytes", "application/octet-stream", Arrays.asList("AAEC", "AwQ", "\nBQ==\n"));
+        assertLengthMatches(conn, uploader);
+        String body = conn.body.toString("UTF-8");
+        assertTrue(body.contains("\r\n\r\nhello\r\n"));
+    }
+
+    @Test
+    public void emptyForm() throws Exception {
+        FakeConnection conn = new FakeConnection();
+        assertLengthMatches(conn, new FormUploader(conn));
+    }
+}
@@ -0,0 +1,69 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class JsonScannerTest {
+
+    @Test
+    public void acceptsValidJson() {
+        String[] valid = {
+            "{}",
+            "[]",
+            " \n{ \"a\" : [1, -2.5e+3, true, false, null, \"x\\\"y\\u00e9\"] }\t",
+            "\"text\"",
+            "0",
+            "-0.1",
+            "1E5",
+            "null",
+            "{\"a\":{\"b\":{\"c\":[]}}}"
+        };
+        for (String text : valid) {
+            assertTrue(text, JsonScanner.isValid(text));
+        }
+    }
+
+    @Test
+    public void nestsDeeperThanInitialStack() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(i % 2 == 0 ? "[" : "{\"a\":");
+        }
+        text.append("1");
+        for (int i = 99; i >= 0; i--) {
+            text.append(i % 2 == 0 ? "]" : "}");
+        }
+        assertTrue(JsonScanner.isValid(text));
+        assertFalse(JsonScanner.isValid(text.substring(0, text.length() - 1)));
+    }
+
+    @Test
+    public void rejectsInvalidJson() {
+        String[] invalid = {
+            "",
+            " ",
+            "{",
+            "[1,]",
+            "{\"a\":1,}",
+            "{a:1}",
+            "[1 2]",
+            "01",
+            "1.",
+            "-",
+            "tru",
+            "nul",
+            "True",
+            "\"unterminated",
+            "\"bad \\x escape\"",
+            "\"control \u0001 char\"",
+            "{} {}",
+            "[1]]",
+            "{\"a\"}"
+        };
+        for (String text : invalid) {
+            assertFalse(text, JsonScanner.isValid(text));
+        }
+    }
+}
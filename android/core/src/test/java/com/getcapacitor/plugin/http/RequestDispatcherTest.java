@@ -0,0 +1,204 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class RequestDispatcherTest {
+
+    /**
+     * Holds the tasks the dispatcher promotes until the test runs them, a
+     * held task counts as running
+     */
+    static class DeferredExecutor extends AbstractExecutorService {
+        final List<Runnable> running = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            running.add(command);
+        }
+
+        void runNext() {
+            running.remove(0).run();
+        }
+
+        void runAll() {
+            while (!running.isEmpty()) {
+                runNext();
+            }
+        }
+
+        @Override
+        public void shutdown() {}
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    static Runnable record(final List<String> started, final String name) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                started.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void limitsRequestsPerHost() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(10, 2, 10, executor);
+        List<String> started = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            dispatcher.enqueue("a.example.com", RequestPriority.NORMAL, record(started, "a" + i));
+        }
+        dispatcher.enqueue("b.example.com", RequestPriority.NORMAL, record(started, "b"));
+        assertEquals(3, executor.running.size());
+
+        executor.runNext();
+        assertEquals(3, executor.running.size());
+        executor.runAll();
+        assertEquals(Arrays.asList("a0", "a1", "b", "a2", "a3"), started);
+    }
+
+    @Test
+    public void limitsRequests() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(3, 3, 3, executor);
+        List<String> started = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            dispatcher.enqueue("host" + i, RequestPriority.NORMAL, record(started, "t" + i));
+        }
+        assertEquals(3, executor.running.size());
+        executor.runAll();
+        assertEquals(8, started.size());
+    }
+
+    @Test
+    public void limitsBackgroundRequests() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(10, 10, 1, executor);
+        List<String> started = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            dispatcher.enqueue("host" + i, RequestPriority.BACKGROUND, record(started, "background" + i));
+        }
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "normal"));
+        assertEquals(2, executor.running.size());
+
+        executor.runAll();
+        assertEquals(Arrays.asList("background0", "normal", "background1", "background2"), started);
+    }
+
+    @Test
+    public void reservesWithinHostLimit() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(10, 4, 10, executor);
+        List<String> started = new ArrayList<>();
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "download"));
+        assertEquals(3, dispatcher.reserve("host", RequestPriority.NORMAL, 8));
+        assertEquals(0, dispatcher.reserve("host", RequestPriority.NORMAL, 1));
+
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "next"));
+        assertEquals(1, executor.running.size());
+        dispatcher.release("host", RequestPriority.NORMAL, 3);
+        assertEquals(2, executor.running.size());
+    }
+
+    @Test
+    public void reservesWithinBackgroundLimit() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(10, 10, 2, executor);
+        dispatcher.enqueue("host", RequestPriority.BACKGROUND, record(new ArrayList<String>(), "download"));
+        assertEquals(1, dispatcher.reserve("host", RequestPriority.BACKGROUND, 3));
+    }
+
+    @Test
+    public void reservesNothingWhileTasksAreQueued() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(1, 1, 1, executor);
+        dispatcher.enqueue("a", RequestPriority.NORMAL, record(new ArrayList<String>(), "running"));
+        dispatcher.enqueue("b", RequestPriority.NORMAL, record(new ArrayList<String>(), "queued"));
+        assertEquals(0, dispatcher.reserve("a", RequestPriority.NORMAL, 1));
+    }
+
+    @Test
+    public void promotesWhenTaskFails() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(1, 1, 1, executor);
+        dispatcher.enqueue(
+            "host",
+            RequestPriority.NORMAL,
+            new Runnable() {
+
+                @Override
+                public void run() {
+                    throw new IllegalStateException();
+                }
+            }
+        );
+        List<String> started = new ArrayList<>();
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "next"));
+        try {
+            executor.runNext();
+        } catch (IllegalStateException ex) {
+            // Thrown by the first task
+        }
+        executor.runAll();
+        assertEquals(Collections.singletonList("next"), started);
+    }
+
+    @Test
+    public void startsHigherPriorityFirst() {
+        DeferredExecutor executor = new DeferredExecutor();
+        RequestDispatcher dispatcher = new RequestDispatcher(1, 1, 1, executor);
+        List<String> started = new ArrayList<>();
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "first"));
+        dispatcher.enqueue("host", RequestPriority.BACKGROUND, record(started, "background"));
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "normal1"));
+        dispatcher.enqueue("host", RequestPriority.CRITICAL, record(started, "critical"));
+        dispatcher.enqueue("host", RequestPriority.NORMAL, record(started, "normal2"));
+
+        executor.runAll();
+        assertEquals(Arrays.asList("first", "critical", "normal1", "normal2", "background"), started);
+    }
+
+    @Test
+    public void parsesPriority() {
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.parse("Critical", RequestPriority.NORMAL));
+        assertEquals(RequestPriority.BACKGROUND, RequestPriority.parse(null, RequestPriority.BACKGROUND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownPriority() {
+        RequestPriority.parse("urgent", RequestPriority.NORMAL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidLimits() {
+        new RequestDispatcher(1, 0, 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private static RetryPolicy policy(int maxAttempts, boolean retryNonIdempotent) {
+        return new RetryPolicy(maxAttempts, 100, 1000, RetryPolicy.DEFAULT_STATUS_CODES, retryNonIdempotent);
+    }
+
+    @Test
+    public void delayStaysBelowExponentialCeiling() {
+        RetryPolicy policy = policy(10, false);
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long ceiling = Math.min(100L << (attempt - 1), 1000);
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.getDelay(attempt, null);
+                assertTrue("attempt " + attempt + ": " + delay, delay >= 0 && delay < ceiling);
+            }
+        }
+    }
+
+    @Test
+    public void retryAfterIsHonoredUpToMaxDelay() {
+        RetryPolicy policy = policy(3, false);
+        assertEquals(0, policy.getDelay(1, "0"));
+        assertEquals(1000, policy.getDelay(1, " 1 "));
+        assertEquals(1000, policy.getDelay(1, "120"));
+    }
+
+    @Test
+    public void negativeRetryAfterIsClamped() {
+        assertEquals(0, policy(3, false).getDelay(1, "-5"));
+    }
+
+    @Test
+    public void retryAfterDateFallsBackToBackoff() {
+        long delay = policy(3, false).getDelay(1, "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertTrue(delay >= 0 && delay < 100);
+    }
+
+    @Test
+    public void noneNeverRetries() {
+        assertFalse(RetryPolicy.NONE.shouldRetry(1, "GET", 503));
+        assertFalse(RetryPolicy.NONE.shouldRetry(1, "GET", new SocketTimeoutException()));
+        assertEquals(0, RetryPolicy.NONE.getDelay(1, null));
+    }
+
+    @Test
+    public void statusCodesAreRetriedUntilMaxAttempts() {
+        RetryPolicy policy = policy(3, false);
+        assertTrue(policy.shouldRetry(1, "GET", 503));
+        assertTrue(policy.shouldRetry(2, "GET", 503));
+        assertFalse(policy.shouldRetry(3, "GET", 503));
+        assertFalse(policy.shouldRetry(1, "GET", 404));
+        assertFalse(policy.shouldRetry(1, "POST", 503));
+        assertTrue(policy(3, true).shouldRetry(1, "POST", 503));
+    }
+
+    @Test
+    public void postIsOnlyRetriedIfNotSent() {
+        RetryPolicy policy = policy(3, false);
+        assertTrue(policy.shouldRetry(1, "POST", new ConnectException()));
+        assertFalse(policy.shouldRetry(1, "POST", new SocketTimeoutException()));
+        assertTrue(policy.shouldRetry(1, "GET", new SocketTimeoutException()));
+    }
+
+    @Test
+    public void cancellationIsNotRetried() {
+        assertFalse(policy(3, true).shouldRetry(1, "GET", new InterruptedIOException()));
+    }
+}
@@ -0,0 +1,142 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import org.json.JSONException;
+
+/**
+ * Keeps client profiles: options shared by many calls, registered once so
+ * each call only sends what differs.
+ *
+ * A call that names a profile gets every option of the profile it doesn't
+ * set itself. Headers and params are merged, with the call's values taking
+ * precedence, and a relative url is resolved against the profile's baseUrl.
+ */
+public class ClientRegistry {
+    private final Map<String, JSObject> clients = new HashMap<>();
+
+    /**
+     * Registers a profile, replacing an earlier one with the same id
+     *
+     * @param clientId the id of the profile, or null to generate one
+     * @param options the options of the profile
+     * @return the id of the profile
+     * @throws MalformedURLException if baseUrl isn't a valid URL
+     * @throws JSONException
+     */
+    public String create(String clientId, JSObject options) throws MalformedURLException, JSONException {
+        JSObject profile = new JSObject(options.toString());
+        profile.remove("clientId");
+        String baseUrl = profile.getString("baseUrl");
+        if (baseUrl != null) {
+            new URL(baseUrl);
+        }
+        if (clientId == null) {
+            clientId = UUID.randomUUID().toString();
+        }
+        synchronized (clients) {
+            clients.put(clientId, profile);
+        }
+        return clientId;
+    }
+
+    /**
+     * @param clientId the id of the profile
+     * @return whether a profile with the id was found
+     */
+    public boolean destroy(String clientId) {
+        synchronized (clients) {
+            return clients.remove(clientId) != null;
+        }
+    }
+
+    /**
+     * Adds the options of the profile named by clientId to the call options
+     *
+     * @param options the options of a call, they are changed in place
+     * @return the same options
+     * @throws IllegalArgumentException if there is no profile with the id
+     * @throws MalformedURLException if the url can't be resolved against the baseUrl
+     */
+    public JSObject apply(JSObject options) throws MalformedURLException {
+        String clientId = options.getString("clientId");
+        if (clientId == null) {
+            return options;
+        }
+        JSObject profile;
+        synchronized (clients) {
+            profile = clients.get(clientId);
+        }
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown client: " + clientId);
+        }
+
+        Iterator<String> keys = profile.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if ("baseUrl".equals(key)) {
+                continue;
+            }
+            if ("headers".equals(key) || "params".equals(key)) {
+                options.put(key, merge(profile.getJSObject(key), options.getJSObject(key), "headers".equals(key)));
+            } else if (!options.has(key)) {
+                options.put(key, profile.opt(key));
+            }
+        }
+
+        String baseUrl = profile.getString("baseUrl");
+        if (baseUrl != null) {
+            String url = options.getString("url");
+            options.put("url", url != null ? new URL(new URL(baseUrl), url).toString() : baseUrl);
+        }
+        return options;
+    }
+
+    /**
+     * Combines the values of the profile with those of the call, which take
+     * precedence. The profile's own object is never returned, the call may
+     * change the result.
+     *
+     * @param ignoreCase whether names differing only in case are the same, as for headers
+     */
+    private static JSObject merge(JSObject defaults, JSObject values, boolean ignoreCase) {
+        if (defaults == null) {
+            return values;
+        }
+        if (values == null) {
+            values = new JSObject();
+        }
+        JSObject merged = new JSObject();
+        Iterator<String> keys = defaults.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!contains(values, key, ignoreCase)) {
+                merged.put(key, defaults.opt(key));
+            }
+        }
+        keys = values.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            merged.put(key, values.opt(key));
+        }
+        return merged;
+    }
+
+    private static boolean contains(JSObject object, String name, boolean ignoreCase) {
+        if (!ignoreCase) {
+            return object.has(name);
+        }
+        Iterator<String> keys = object.keys();
+        while (keys.hasNext()) {
+            if (keys.next().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,14 +3,14 @@ package com.getcapacitor.plugin.http;
 import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.net.ConnectivityManager;
 import android.net.Network;
-import android.net.NetworkCapabilities;
-import android.net.NetworkRequest;
 import android.net.Uri;
+import android.net.http.HttpResponseCache;
 import android.os.Build;
 import android.provider.Settings;
+import android.util.Base64;
 import android.util.Log;
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
@@ -18,210 +18,1428 @@ import com.getcapacitor.NativePlugin;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
-import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.HttpCookie;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Cache;
+import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
 /**
  * Native HTTP Plugin
  */
 @NativePlugin(requestCodes = { Http.HTTP_REQUEST_DOWNLOAD_WRITE_PERMISSIONS, Http.HTTP_REQUEST_UPLOAD_READ_PERMISSIONS })
 public class Http extends Plugin {
-    private static final int API_VERSION = Build.VERSION.SDK_INT;
 
     public static final int HTTP_REQUEST_DOWNLOAD_WRITE_PERMISSIONS = 9022;
     public static final int HTTP_REQUEST_UPLOAD_READ_PERMISSIONS = 9023;
 
+    private static final String CACHE_SUBDIRECTORY = "CapacitorHttpCache";
+    private static final String OKHTTP_CACHE_SUBDIRECTORY = "CapacitorHttpOkHttpCache";
+    private static final int DEFAULT_CACHE_SIZE = 10 * 1024 * 1024;
+    private static final int DEFAULT_DOWNLOAD_SEGMENTS = 1;
+    private static final int DEFAULT_DOWNLOAD_SEGMENT_THRESHOLD = 16 * 1024 * 1024;
+    private static final String UPLOADS_PREFERENCES = "CapacitorHttpUploads";
+    private static final String RESPONSE_FILES_SUBDIRECTORY = "CapacitorHttpResponses";
+    private static final String OFFLINE_QUEUE_FILE = "CapacitorHttpOfflineQueue.jsonl";
+    private static final int DEFAULT_WIFI_TIMEOUT = 10000;
+    private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+    private static final String DEFAULT_DATA_FILE_NAME = "blob";
+    private static final List<String> COALESCING_IGNORED_OPTIONS = Arrays.asList("coalesce", "webFetchExtra");
+
     Context context;
     WebkitCookieManagerProxy cookieManager;
+    RequestDispatcher dispatcher;
+    RequestCoalescer coalescer = new RequestCoalescer();
+    RequestRegistry requestRegistry = new RequestRegistry();
+    ClientRegistry clients = new ClientRegistry();
+    MetricsRegistry metrics = new MetricsRegistry(MetricsRegistry.DEFAULT_SAMPLE_SIZE);
+    HttpResponseCache responseCache;
+    HttpTransport platformTransport = new UrlConnectionTransport();
+    OkHttpTransport okHttpTransport;
+    Cache okHttpCache;
+    String defaultTransport;
+    CircuitBreaker circuitBreaker;
+    WifiNetworkTracker wifiNetworkTracker;
+    OfflineQueue offlineQueue;
+    BandwidthLimiter backgroundLimiter;
+    int downloadSegments;
+    int responseFileThreshold;
+    long downloadSegmentThreshold;
 
     @Override
     public void load() {
         this.context = this.bridge.getContext();
         this.cookieManager = new WebkitCookieManagerProxy(null, java.net.CookiePolicy.ACCEPT_ALL);
         java.net.CookieHandler.setDefault(cookieManager);
+        this.dispatcher =
+            new RequestDispatcher(
+                getConfig().getInt("maxConcurrentRequests", RequestDispatcher.DEFAULT_MAX_REQUESTS),
+                getConfig().getInt("maxConcurrentRequestsPerHost", RequestDispatcher.DEFAULT_MAX_REQUESTS_PER_HOST),
+                getConfig().getInt("maxConcurrentBackgroundRequests", RequestDispatcher.DEFAULT_MAX_BACKGROUND_REQUESTS)
+            );
+        this.responseCache = installResponseCache();
+        this.defaultTransport = getConfig().getString("transport", UrlConnectionTransport.NAME);
+        this.circuitBreaker =
+            new CircuitBreaker(
+                getConfig().getInt("circuitBreakerThreshold", CircuitBreaker.DEFAULT_FAILURE_THRESHOLD),
+                getConfig().getInt("circuitBreakerResetTimeout", (int) CircuitBreaker.DEFAULT_RESET_TIMEOUT)
+            );
+        this.wifiNetworkTracker = new WifiNetworkTracker(this.context);
+        this.backgroundLimiter =
+            new BandwidthLimiter(getConfig().getInt("maxBackgroundBytesPerSecond", (int) BandwidthLimiter.UNLIMITED), null);
+        this.responseFileThreshold = getConfig().getInt("responseFileThreshold", 0);
+        deleteResponseFiles();
+        this.downloadSegments = getConfig().getInt("downloadSegments", DEFAULT_DOWNLOAD_SEGMENTS);
+        this.downloadSegmentThreshold = getConfig().getInt("downloadSegmentThreshold", DEFAULT_DOWNLOAD_SEGMENT_THRESHOLD);
+        this.offlineQueue =
+            new OfflineQueue(
+                this.context,
+                new File(this.context.getFilesDir(), OFFLINE_QUEUE_FILE),
+                getConfig().getInt("maxConcurrentReplays", OfflineQueue.DEFAULT_MAX_CONCURRENT_REPLAYS)
+            );
+        startOfflineQueue();
+    }
+
+    @Override
+    protected void handleOnPause() {
+        super.handleOnPause();
+        cookieManager.flush();
+        if (responseCache != null) {
+            responseCache.flush();
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        wifiNetworkTracker.stop();
+        offlineQueue.stop();
+        synchronized (this) {
+            if (okHttpTransport != null) {
+                okHttpTransport.evictConnections();
+            }
+        }
+    }
+
+    /**
+     * Installs a disk cache for responses to GET requests on the platform
+     * transport if the app opted in with globalResponseCache. Cache-Control and
+     * Expires headers are honored, and stale entries with an ETag or
+     * Last-Modified header are revalidated with a conditional request.
+     *
+     * HttpResponseCache is the process-wide ResponseCache, so every
+     * HttpURLConnection in the app uses it, not only the plugin's. The okhttp
+     * transport has a cache of its own instead.
+     */
+    private HttpResponseCache installResponseCache() {
+        int cacheSize = getConfig().getInt("cacheSize", DEFAULT_CACHE_SIZE);
+        if (cacheSize <= 0 || !getConfig().getBoolean("globalResponseCache", false)) {
+            return null;
+        }
+
+        File cacheDir = getCacheDir(CACHE_SUBDIRECTORY);
+        if (cacheDir == null) {
+            return null;
+        }
+
+        try {
+            return HttpResponseCache.install(cacheDir, cacheSize);
+        } catch (IOException ex) {
+            Log.w(getLogTag(), "Unable to install response cache", ex);
+            return null;
+        }
+    }
+
+    /**
+     * The directory large response bodies are written to, the files of a
+     * previous run are deleted when the plugin loads
+     */
+    private File getResponseFilesDir() {
+        File dir = FilesystemUtils.getFileObject(getContext(), RESPONSE_FILES_SUBDIRECTORY, FilesystemUtils.DIRECTORY_CACHE);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(getLogTag(), "Unable to create " + dir);
+        }
+        return dir;
+    }
+
+    private void deleteResponseFiles() {
+        File[] files = getResponseFilesDir().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private File getCacheDir(String subdirectory) {
+        String cacheDirectory = getConfig().getString("cacheDirectory", FilesystemUtils.DIRECTORY_CACHE);
+        File cacheDir = FilesystemUtils.getFileObject(getContext(), subdirectory, cacheDirectory);
+        if (cacheDir == null) {
+            Log.w(getLogTag(), "Unknown cache directory '" + cacheDirectory + "', response cache disabled");
+        }
+        return cacheDir;
+    }
+
+    /**
+     * Returns the transport a request is sent with, the one in the request
+     * options or else the one configured for the app
+     */
+    private HttpTransport getTransport(JSObject options) {
+        String name = options.getString("transport", defaultTransport);
+        if (UrlConnectionTransport.NAME.equals(name)) {
+            return platformTransport;
+        } else if (OkHttpTransport.NAME.equals(name)) {
+            return getOkHttpTransport();
+        }
+        throw new IllegalArgumentException("Unknown transport: " + name);
+    }
+
+    /**
+     * Creates the OkHttp transport when it is first used. It has its own
+     * connection pool and response cache, cookies are shared.
+     */
+    private synchronized OkHttpTransport getOkHttpTransport() {
+        if (okHttpTransport == null) {
+            int cacheSize = getConfig().getInt("cacheSize", DEFAULT_CACHE_SIZE);
+            File cacheDir = cacheSize > 0 ? getCacheDir(OKHTTP_CACHE_SUBDIRECTORY) : null;
+            okHttpCache = cacheDir != null ? new Cache(cacheDir, cacheSize) : null;
+            okHttpTransport =
+                new OkHttpTransport(
+                    cookieManager,
+                    okHttpCache,
+                    getConfig().getInt("maxIdleConnections", OkHttpTransport.DEFAULT_MAX_IDLE_CONNECTIONS),
+                    getConfig().getInt("keepAliveDuration", (int) OkHttpTransport.DEFAULT_KEEP_ALIVE_DURATION),
+                    getConfig().getInt("maxConcurrentRequests", RequestDispatcher.DEFAULT_MAX_REQUESTS)
+                );
+        }
+        return okHttpTransport;
     }
 
     @PluginMethod
-    public void request(PluginCall call) {
-        boolean bindToWifi = call.getBoolean("bindToWifi", false);
+    public void request(final PluginCall call) {
+        if (!applyClient(call) || queueIfOffline(call)) {
+            return;
+        }
+
+        executeRequest(
+            call.getData(),
+            new RequestCallback() {
 
-        if (bindToWifi) {
-            this.bind(call);
+                @Override
+                public void onResponse(JSObject response) {
+                    call.resolve(response);
+                }
+
+                @Override
+                public void onError(Exception ex) {
+                    if (!queueOnNetworkError(call, ex)) {
+                        reject(call, ex);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Registers a client profile: options such as a base URL, headers and
+     * timeouts that calls naming the profile with clientId don't need to send
+     */
+    @PluginMethod
+    public void createClient(PluginCall call) {
+        try {
+            JSObject ret = new JSObject();
+            ret.put("clientId", clients.create(call.getString("clientId"), call.getData()));
+            call.resolve(ret);
+        } catch (MalformedURLException ex) {
+            call.reject("Invalid URL", ex);
+        } catch (JSONException ex) {
+            call.reject("Invalid client options", ex);
+        }
+    }
+
+    @PluginMethod
+    public void destroyClient(PluginCall call) {
+        String clientId = call.getString("clientId");
+        if (clientId == null) {
+            call.reject("Must provide a clientId");
+            return;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("destroyed", clients.destroy(clientId));
+        call.resolve(ret);
+    }
+
+    /**
+     * Adds the options of the client profile the call names with clientId
+     *
+     * @return false if the call was rejected because the profile or the resulting URL is invalid
+     */
+    private boolean applyClient(PluginCall call) {
+        try {
+            clients.apply(call.getData());
+            return true;
+        } catch (MalformedURLException ex) {
+            call.reject("Invalid URL", ex);
+        } catch (IllegalArgumentException ex) {
+            call.reject(ex.getMessage());
+        }
+        return false;
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        String requestId = call.getString("requestId");
+        if (requestId == null) {
+            call.reject("Must provide a requestId");
+            return;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("canceled", requestRegistry.cancel(requestId));
+        call.resolve(ret);
+    }
+
+    /**
+     * Changes the bandwidth limit of a running download or upload, or the
+     * limit shared by every transfer in the background if no requestId is given
+     */
+    @PluginMethod
+    public void setBandwidthLimit(PluginCall call) {
+        Integer maxBytesPerSecond = call.getInt("maxBytesPerSecond");
+        if (maxBytesPerSecond == null) {
+            call.reject("Must provide maxBytesPerSecond");
+            return;
+        }
+
+        BandwidthLimiter limiter = backgroundLimiter;
+        String requestId = call.getString("requestId");
+        if (requestId != null) {
+            RequestHandle handle = requestRegistry.get(requestId);
+            limiter = handle != null ? handle.getBandwidthLimiter() : null;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("updated", limiter != null);
+        if (limiter != null) {
+            try {
+                limiter.setBytesPerSecond(maxBytesPerSecond);
+            } catch (IllegalArgumentException ex) {
+                call.reject(ex.getMessage());
+                return;
+            }
+        }
+        call.resolve(ret);
+    }
+
+    private void reject(PluginCall call, Exception ex) {
+        if (ex instanceof MalformedURLException) {
+            call.reject("Invalid URL", ex);
+        } else if (ex instanceof RequestHandle.CanceledException) {
+            call.reject(ex.getMessage(), ((RequestHandle.CanceledException) ex).getCode(), ex);
+        } else if (ex instanceof ChecksumVerifier.MismatchException) {
+            call.reject(ex.getMessage(), ChecksumVerifier.MismatchException.CODE, ex);
+        } else if (ex instanceof IllegalArgumentException) {
+            call.reject(ex.getMessage(), ex);
+        } else {
+            call.reject("Error", ex);
+        }
+    }
+
+    /**
+     * Runs a request asynchronously. Identical GET and HEAD requests that are
+     * in flight at the same time share one network request.
+     *
+     * @param options the request options
+     * @param callback receives the response
+     */
+    private void executeRequest(final JSObject options, RequestCallback callback) {
+        String key = getCoalescingKey(options);
+        if (key != null) {
+            callback = coalescer.join(key, callback);
+            if (callback == null) {
+                return;
+            }
+        }
+
+        if (options.getBoolean("bindToWifi", false) && !canBindToWifi()) {
+            callback.onError(new IOException("Permission to bind to Wi-Fi not granted"));
+            return;
+        }
+
+        final RequestPriority priority;
+        final RequestHandle handle;
+        try {
+            priority = RequestPriority.parse(options.getString("priority"), RequestPriority.NORMAL);
+            handle = requestRegistry.register(options.getString("requestId"), options.getInteger("timeout"));
+        } catch (IllegalArgumentException ex) {
+            callback.onError(ex);
+            return;
+        }
+
+        this.enqueue(
+            options,
+            priority,
+            handle,
+            new Callable<JSObject>() {
+
+                @Override
+                public JSObject call() throws Exception {
+                    return performRequest(options, handle);
+                }
+            },
+            callback
+        );
+    }
+
+    /**
+     * Runs a call on the dispatcher. The handle of the call is finished and
+     * its timings are recorded before the callback is invoked.
+     *
+     * @param options the options of the call
+     * @param priority the priority of the call
+     * @param handle the handle of the call
+     * @param work the call itself
+     * @param callback receives the result
+     */
+    private void enqueue(
+        final JSObject options,
+        RequestPriority priority,
+        final RequestHandle handle,
+        final Callable<JSObject> work,
+        final RequestCallback callback
+    ) {
+        dispatcher.enqueue(
+            getHost(options.getString("url")),
+            priority,
+            new Runnable() {
+
+                @Override
+                public void run() {
+                    JSObject response = null;
+                    Exception error = null;
+                    try {
+                        handle.begin();
+                        response = work.call();
+                    } catch (Exception ex) {
+                        error = handle.translate(ex);
+                    } finally {
+                        requestRegistry.finish(handle);
+                    }
+
+                    recordMetrics(options, handle.getTimings(), error);
+                    if (response != null && options.getBoolean("timings", false)) {
+                        response.put("timings", MetricsRegistry.toJSObject(handle.getTimings()));
+                    }
+
+                    if (error != null) {
+                        callback.onError(error);
+                    } else {
+                        callback.onResponse(response);
+                    }
+                }
+            }
+        );
+    }
+
+    private void recordMetrics(JSObject options, RequestTimings timings, Exception error) {
+        String url = options.getString("url");
+        boolean failed = error != null && !(error instanceof RequestHandle.CanceledException);
+        metrics.record(getHost(url), timings, failed);
+
+        if (hasListeners("metrics")) {
+            JSObject event = new JSObject();
+            event.put("url", url);
+            event.put("method", options.getString("method", "GET"));
+            event.put("timings", MetricsRegistry.toJSObject(timings));
+            if (error != null) {
+                event.put("error", error.getMessage() != null ? error.getMessage() : error.toString());
+            }
+            notifyListeners("metrics", event);
+        }
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("hosts", metrics.getMetrics());
+        if (call.getBoolean("reset", false)) {
+            metrics.reset();
+        }
+        call.resolve(ret);
+    }
+
+    /**
+     * Opens connections to the origins of the given URLs ahead of the first
+     * request to them, in parallel. Each origin is resolved, connected and
+     * sent a HEAD request on the transport later requests use, which leaves
+     * the connection in its pool. Resolves once every origin is done, with
+     * the outcome of each.
+     */
+    @PluginMethod
+    public void preconnect(final PluginCall call) {
+        JSArray urls = call.getArray("urls");
+        if (urls == null) {
+            call.reject("Must provide urls");
+            return;
+        }
+
+        final HttpTransport transport;
+        final RequestPriority priority;
+        final List<String> urlList;
+        try {
+            transport = getTransport(call.getData());
+            priority = RequestPriority.parse(call.getString("priority"), RequestPriority.NORMAL);
+            urlList = urls.toList();
+        } catch (IllegalArgumentException | JSONException ex) {
+            call.reject(ex.getMessage(), ex);
+            return;
+        }
+
+        final Integer connectTimeout = call.getInt("connectTimeout");
+        final JSObject[] results = new JSObject[urlList.size()];
+        final AtomicInteger remaining = new AtomicInteger(results.length);
+        if (results.length == 0) {
+            call.resolve(toPreconnectResult(results));
+            return;
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            final int index = i;
+            final String url = urlList.get(i);
+            dispatcher.enqueue(
+                getHost(url),
+                priority,
+                new Runnable() {
+
+                    @Override
+                    public void run() {
+                        results[index] = warmUp(transport, url, connectTimeout);
+                        if (remaining.decrementAndGet() == 0) {
+                            call.resolve(toPreconnectResult(results));
+                        }
+                    }
+                }
+            );
+        }
+    }
+
+    private JSObject warmUp(HttpTransport transport, String urlString, Integer connectTimeout) {
+        RequestTimings timings = new RequestTimings();
+        timings.started();
+        timings.attemptStarted();
+
+        JSObject result = new JSObject();
+        result.put("url", urlString);
+        try {
+            URL url = new URL(urlString);
+            URL origin = new URL(url.getProtocol(), url.getHost(), url.getPort(), "/");
+            HttpURLConnection conn = makeUrlConnection(transport, null, origin, "HEAD", connectTimeout, connectTimeout, false, null, null);
+            establishConnection(conn, timings);
+            conn.getResponseCode();
+            // Closing the empty body rather than disconnecting keeps the connection pooled
+            InputStream stream = conn.getErrorStream();
+            if (stream == null) {
+                stream = conn.getInputStream();
+            }
+            stream.close();
+            result.put("connected", true);
+        } catch (Exception ex) {
+            Log.d(getLogTag(), "Unable to preconnect to " + urlString, ex);
+            result.put("connected", false);
+            result.put("error", ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        }
+        result.put("dns", timings.getDns());
+        result.put("connect", timings.getConnect());
+        result.put("tls", timings.getTls());
+        return result;
+    }
+
+    private static JSObject toPreconnectResult(JSObject[] results) {
+        JSArray origins = new JSArray();
+        for (JSObject result : results) {
+            origins.put(result);
+        }
+        JSObject ret = new JSObject();
+        ret.put("origins", origins);
+        return ret;
+    }
+
+    /**
+     * Builds the key identical requests are coalesced by: every option that
+     * can change the response, with object keys in a stable order.
+     *
+     * Only requests that opted in are coalesced. Requests with a requestId or
+     * a timeout never are, the shared call would fail for every caller when
+     * one of them cancels it or runs out of time.
+     *
+     * @return the key, or null if the request must not be coalesced
+     */
+    private String getCoalescingKey(JSObject options) {
+        String method = options.getString("method", "GET");
+        if (
+            !("GET".equals(method) || "HEAD".equals(method)) ||
+            !options.getBoolean("coalesce", false) ||
+            options.has("requestId") ||
+            options.has("timeout")
+        ) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        appendCanonical(key, options, COALESCING_IGNORED_OPTIONS);
+        return key.toString();
+    }
+
+    private static void appendCanonical(StringBuilder builder, Object value, List<String> ignoredKeys) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            List<String> keys = new ArrayList<>();
+            Iterator<String> i = object.keys();
+            while (i.hasNext()) {
+                String key = i.next();
+                if (!ignoredKeys.contains(key)) {
+                    keys.add(key);
+                }
+            }
+            Collections.sort(keys);
+            builder.append('{');
+            for (String key : keys) {
+                builder.append(JSONObject.quote(key)).append(':');
+                appendCanonical(builder, object.opt(key), Collections.<String>emptyList());
+                builder.append(',');
+            }
+            builder.append('}');
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            builder.append('[');
+            for (int i = 0; i < array.length(); i++) {
+                appendCanonical(builder, array.opt(i), Collections.<String>emptyList());
+                builder.append(',');
+            }
+            builder.append(']');
+        } else if (value instanceof String) {
+            builder.append(JSONObject.quote((String) value));
         } else {
-            this.createRequest(call);
+            builder.append(value);
+        }
+    }
+
+    /**
+     * Runs several requests concurrently and resolves with all of their
+     * responses, in the order the requests were given. A failed request
+     * doesn't fail the batch, its entry holds the error message instead.
+     */
+    @SuppressWarnings("unused")
+    @PluginMethod
+    public void requestBatch(final PluginCall call) {
+        JSArray requests = call.getArray("requests");
+        if (requests == null) {
+            call.reject("Must provide requests");
+            return;
+        }
+
+        String clientId = call.getString("clientId");
+        final List<JSObject> batch = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests.length(); i++) {
+                JSObject options = JSObject.fromJSONObject(requests.getJSONObject(i));
+                if (clientId != null && !options.has("clientId")) {
+                    options.put("clientId", clientId);
+                }
+                batch.add(clients.apply(options));
+            }
+        } catch (JSONException ex) {
+            call.reject("Invalid requests", ex);
+            return;
+        } catch (MalformedURLException ex) {
+            call.reject("Invalid URL", ex);
+            return;
+        } catch (IllegalArgumentException ex) {
+            call.reject(ex.getMessage());
+            return;
+        }
+
+        final boolean streamResponses = call.getBoolean("streamResponses", false);
+        final String batchId = call.getString("batchId");
+        final JSObject[] responses = new JSObject[batch.size()];
+        final AtomicInteger remaining = new AtomicInteger(batch.size());
+
+        if (batch.isEmpty()) {
+            JSObject ret = new JSObject();
+            ret.put("responses", new JSArray());
+            call.resolve(ret);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            final int index = i;
+            executeRequest(
+                batch.get(i),
+                new RequestCallback() {
+
+                    @Override
+                    public void onResponse(JSObject response) {
+                        complete(response);
+                    }
+
+                    @Override
+                    public void onError(Exception ex) {
+                        JSObject response = new JSObject();
+                        if (ex instanceof MalformedURLException) {
+                            response.put("error", "Invalid URL");
+                        } else {
+                            response.put("error", ex.getMessage() != null ? ex.getMessage() : ex.toString());
+                        }
+                        complete(response);
+                    }
+
+                    private void complete(JSObject response) {
+                        responses[index] = response;
+
+                        if (streamResponses) {
+                            JSObject event = new JSObject();
+                            event.put("batchId", batchId);
+                            event.put("index", index);
+                            event.put("response", response);
+                            notifyListeners("batchResponse", event);
+                        }
+
+                        if (remaining.decrementAndGet() == 0) {
+                            JSArray ordered = new JSArray();
+                            for (JSObject r : responses) {
+                                ordered.put(r);
+                            }
+                            JSObject ret = new JSObject();
+                            ret.put("responses", ordered);
+                            call.resolve(ret);
+                        }
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Runs the request described by a set of HttpOptions
+     *
+     * @param options the request options
+     * @return the response
+     * @throws Exception
+     */
+    private JSObject performRequest(final JSObject options, final RequestHandle handle) throws Exception {
+        final String url = options.getString("url");
+        final String method = options.getString("method", "GET");
+        final JSObject headers = options.getJSObject("headers");
+        final JSObject params = options.getJSObject("params");
+        final boolean hasBody;
+
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                hasBody = false;
+                break;
+            case "DELETE":
+            case "PATCH":
+            case "POST":
+            case "PUT":
+                hasBody = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported method: " + method);
+        }
+
+        HttpURLConnection conn = connect(
+            handle,
+            options,
+            method,
+            new Callable<HttpURLConnection>() {
+
+                @Override
+                public HttpURLConnection call() throws Exception {
+                    return hasBody ? mutate(handle, options, url, method, headers) : get(handle, options, url, method, headers, params);
+                }
+            }
+        );
+        return buildResponse(options, conn, handle.getTimings());
+    }
+
+    /**
+     * Sends a request and waits for the response headers, retrying as the
+     * retry option allows. While the circuit breaker of the host is open the
+     * request fails without being sent. Only failures up to the response
+     * headers are retried, the body is left for the caller to read.
+     *
+     * @param handle the handle of the call, checked before every attempt
+     * @param options the request options
+     * @param method the request method
+     * @param opener opens the connection and writes the request body
+     * @return the connection with the final response
+     * @throws Exception
+     */
+    private HttpURLConnection connect(RequestHandle handle, JSObject options, String method, Callable<HttpURLConnection> opener)
+        throws Exception {
+        RetryPolicy retryPolicy = getRetryPolicy(options.getJSObject("retry"));
+        String host = getHost(options.getString("url"));
+
+        for (int attempt = 1;; attempt++) {
+            handle.throwIfCanceled();
+            circuitBreaker.acquire(host);
+
+            HttpURLConnection conn;
+            int statusCode;
+            try {
+                handle.getTimings().attemptStarted();
+                conn = opener.call();
+                statusCode = conn.getResponseCode();
+                handle.getTimings().responseStarted();
+            } catch (IOException ex) {
+                handle.disconnectAll();
+                if (handle.isCanceled()) {
+                    circuitBreaker.release(host);
+                    throw ex;
+                }
+                if (offlineQueue.isOnline()) {
+                    circuitBreaker.recordFailure(host);
+                } else {
+                    // Failing without a network says nothing about the host, don't let it open the circuit
+                    circuitBreaker.release(host);
+                }
+                if (!retryPolicy.shouldRetry(attempt, method, ex)) {
+                    throw ex;
+                }
+                Log.d(getLogTag(), "Retrying " + method + " request after " + ex);
+                sleep(retryPolicy.getDelay(attempt, null));
+                continue;
+            } catch (Exception ex) {
+                handle.disconnectAll();
+                circuitBreaker.release(host);
+                throw ex;
+            }
+
+            if (CircuitBreaker.isUnavailable(statusCode)) {
+                circuitBreaker.recordFailure(host);
+            } else {
+                circuitBreaker.recordSuccess(host);
+            }
+
+            if (!retryPolicy.shouldRetry(attempt, method, statusCode)) {
+                return conn;
+            }
+            Log.d(getLogTag(), "Retrying " + method + " request after status " + statusCode);
+            long delay = retryPolicy.getDelay(attempt, conn.getHeaderField("Retry-After"));
+            handle.disconnectAll();
+            sleep(delay);
+        }
+    }
+
+    private RetryPolicy getRetryPolicy(JSObject retry) throws JSONException {
+        if (retry == null) {
+            return RetryPolicy.NONE;
+        }
+
+        Set<Integer> statusCodes = RetryPolicy.DEFAULT_STATUS_CODES;
+        JSONArray codes = retry.optJSONArray("statusCodes");
+        if (codes != null) {
+            statusCodes = new HashSet<>();
+            for (int i = 0; i < codes.length(); i++) {
+                statusCodes.add(codes.getInt(i));
+            }
+        }
+
+        return new RetryPolicy(
+            retry.getInteger("maxAttempts", RetryPolicy.DEFAULT_MAX_ATTEMPTS),
+            retry.getInteger("initialDelay", (int) RetryPolicy.DEFAULT_INITIAL_DELAY),
+            retry.getInteger("maxDelay", (int) RetryPolicy.DEFAULT_MAX_DELAY),
+            statusCodes,
+            retry.getBoolean("retryNonIdempotent", false)
+        );
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    private HttpURLConnection get(
+        RequestHandle handle,
+        JSObject options,
+        String urlString,
+        String method,
+        JSObject headers,
+        JSObject params
+    )
+        throws Exception {
+        Integer connectTimeout = options.getInteger("connectTimeout");
+        Integer readTimeout = options.getInteger("readTimeout");
+        boolean useCache = options.getBoolean("useCache", true);
+
+        URL url = new URL(urlString);
+        Network network = getNetwork(options);
+        HttpURLConnection conn = handle.track(
+            makeUrlConnection(getTransport(options), network, url, method, connectTimeout, readTimeout, useCache, headers, params)
+        );
+        establishConnection(conn, handle.getTimings());
+        return conn;
+    }
+
+    private HttpURLConnection mutate(RequestHandle handle, JSObject options, String urlString, String method, JSObject headers)
+        throws Exception {
+        Integer connectTimeout = options.getInteger("connectTimeout");
+        Integer readTimeout = options.getInteger("readTimeout");
+        JSObject data = options.getJSObject("data");
+
+        URL url = new URL(urlString);
+        Network network = getNetwork(options);
+        HttpURLConnection conn = handle.track(
+            makeUrlConnection(getTransport(options), network, url, method, connectTimeout, readTimeout, false, headers, null)
+        );
+
+        conn.setDoOutput(true);
+
+        setRequestBody(conn, data, headers, handle.getTimings());
+
+        return conn;
+    }
+
+    /**
+     * Connects explicitly so that the time to establish the connection,
+     * including the TLS handshake, is measured separately from the exchange.
+     * DNS is only measured apart where the transport reports it, otherwise
+     * it counts as connect time.
+     */
+    private static void establishConnection(HttpURLConnection conn, RequestTimings timings) throws IOException {
+        timings.connectStarted();
+        TimingSSLSocketFactory.setCurrentTimings(timings);
+        try {
+            conn.connect();
+        } finally {
+            TimingSSLSocketFactory.setCurrentTimings(null);
+        }
+        timings.connectEnded();
+    }
+
+    /**
+     * Returns the Wi-Fi network if the request is bound to it, waiting up to
+     * the connect timeout for Wi-Fi to become available
+     *
+     * @return the network to open the connection on, or null for the default network
+     */
+    private Network getNetwork(JSObject options) throws IOException {
+        if (!options.getBoolean("bindToWifi", false)) {
+            return null;
+        }
+        Integer connectTimeout = options.getInteger("connectTimeout");
+        return wifiNetworkTracker.awaitNetwork(connectTimeout != null ? connectTimeout : DEFAULT_WIFI_TIMEOUT);
+    }
+
+    private HttpURLConnection makeUrlConnection(
+        HttpTransport transport,
+        Network network,
+        URL url,
+        String method,
+        Integer connectTimeout,
+        Integer readTimeout,
+        boolean useCache,
+        JSObject headers,
+        JSObject params
+    )
+        throws Exception {
+        if (params != null) {
+            url = RequestEncoder.appendParams(url, params);
+        }
+
+        HttpURLConnection conn = transport.openConnection(url, network);
+
+        conn.setAllowUserInteraction(false);
+        conn.setRequestMethod(method);
+        conn.setUseCaches(useCache);
+
+        if (connectTimeout != null) {
+            conn.setConnectTimeout(connectTimeout);
+        }
+
+        if (readTimeout != null) {
+            conn.setReadTimeout(readTimeout);
+        }
+
+        setRequestHeaders(conn, headers);
+
+        return conn;
+    }
+
+    @SuppressWarnings("unused")
+    @PluginMethod
+    public void downloadFile(final PluginCall call) {
+        if (!applyClient(call)) {
+            return;
+        }
+
+        String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+
+        saveCall(call);
+
+        if (
+            !FilesystemUtils.isPublicDirectory(fileDirectory) ||
+            isStoragePermissionGranted(Http.HTTP_REQUEST_DOWNLOAD_WRITE_PERMISSIONS, Manifest.permission.WRITE_EXTERNAL_STORAGE)
+        ) {
+            this.freeSavedCall();
+
+            enqueueTransfer(
+                call,
+                new Transfer() {
+
+                    @Override
+                    public JSObject run(RequestHandle handle) throws Exception {
+                        return download(call, handle);
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * A download or upload that runs on the dispatcher
+     */
+    private interface Transfer {
+        JSObject run(RequestHandle handle) throws Exception;
+    }
+
+    private void enqueueTransfer(final PluginCall call, Transfer transfer) {
+        enqueueTransfer(
+            call.getData(),
+            transfer,
+            new RequestCallback() {
+
+                @Override
+                public void onResponse(JSObject response) {
+                    call.resolve(response);
+                }
+
+                @Override
+                public void onError(Exception ex) {
+                    if (!queueOnNetworkError(call, ex)) {
+                        reject(call, ex);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Downloads and uploads run in the background unless the caller gives them a priority
+     */
+    private void enqueueTransfer(JSObject options, final Transfer transfer, RequestCallback callback) {
+        final RequestPriority priority;
+        final RequestHandle handle;
+        try {
+            priority = RequestPriority.parse(options.getString("priority"), RequestPriority.BACKGROUND);
+            // Built before the handle is registered, an invalid limit must not leave it behind
+            BandwidthLimiter limiter = makeBandwidthLimiter(options, priority);
+            handle = requestRegistry.register(options.getString("requestId"), options.getInteger("timeout"));
+            handle.setBandwidthLimiter(limiter);
+        } catch (IllegalArgumentException ex) {
+            callback.onError(ex);
+            return;
+        }
+
+        enqueue(
+            options,
+            priority,
+            handle,
+            new Callable<JSObject>() {
+
+                @Override
+                public JSObject call() throws Exception {
+                    return transfer.run(handle);
+                }
+            },
+            callback
+        );
+    }
+
+    /**
+     * Creates the limiter of a download or upload. Transfers in the
+     * background share the limit configured for the app, maxBytesPerSecond
+     * limits a transfer on its own. The limiter is created even without a
+     * limit so that one can be set while the transfer runs.
+     */
+    private BandwidthLimiter makeBandwidthLimiter(JSObject options, RequestPriority priority) {
+        Integer maxBytesPerSecond = options.getInteger("maxBytesPerSecond");
+        return new BandwidthLimiter(
+            maxBytesPerSecond != null ? maxBytesPerSecond : BandwidthLimiter.UNLIMITED,
+            priority == RequestPriority.BACKGROUND ? backgroundLimiter : null
+        );
+    }
+
+    /**
+     * Sends the calls in the offline queue once the device is online and
+     * emits an "offlineResponse" event for each
+     */
+    private void startOfflineQueue() {
+        offlineQueue.start(
+            new OfflineQueue.Sender() {
+
+                @Override
+                public void send(String method, final JSObject options, RequestCallback callback) {
+                    if ("uploadFile".equals(method)) {
+                        enqueueTransfer(
+                            options,
+                            new Transfer() {
+
+                                @Override
+                                public JSObject run(RequestHandle handle) throws Exception {
+                                    return upload(options, handle);
+                                }
+                            },
+                            callback
+                        );
+                    } else {
+                        executeRequest(options, callback);
+                    }
+                }
+            },
+            new OfflineQueue.Listener() {
+
+                @Override
+                public void onReplayed(JSObject entry, JSObject response, Exception error) {
+                    JSObject event = new JSObject();
+                    event.put("queueId", entry.getString("id"));
+                    event.put("method", entry.getString("method"));
+                    if (response != null) {
+                        event.put("response", response);
+                    } else if (error instanceof MalformedURLException) {
+                        event.put("error", "Invalid URL");
+                    } else {
+                        event.put("error", error.getMessage() != null ? error.getMessage() : error.toString());
+                    }
+                    notifyListeners("offlineResponse", event, true);
+                }
+            }
+        );
+    }
+
+    /**
+     * Queues a call made with the queueOffline option while the device is offline
+     *
+     * @return whether the call was queued and resolved
+     */
+    private boolean queueIfOffline(PluginCall call) {
+        if (!canQueueOffline(call) || offlineQueue.isOnline()) {
+            return false;
         }
+        queueOffline(call);
+        return true;
     }
 
-    private void createRequest(PluginCall call) {
-        String url = call.getString("url");
-        String method = call.getString("method");
-        JSObject headers = call.getObject("headers");
-        JSObject params = call.getObject("params");
-
-        switch (method) {
-            case "GET":
-            case "HEAD":
-                get(call, url, method, headers, params);
-                return;
-            case "DELETE":
-            case "PATCH":
-            case "POST":
-            case "PUT":
-                mutate(call, url, method, headers);
-                return;
+    /**
+     * Queues a call made with the queueOffline option that failed because of the network
+     *
+     * @return whether the call was queued and resolved
+     */
+    private boolean queueOnNetworkError(PluginCall call, Exception ex) {
+        if (!canQueueOffline(call) || !OfflineQueue.isNetworkError(ex)) {
+            return false;
         }
+        queueOffline(call);
+        return true;
     }
 
-    private void get(PluginCall call, String urlString, String method, JSObject headers, JSObject params) {
-        try {
-            Integer connectTimeout = call.getInt("connectTimeout");
-            Integer readTimeout = call.getInt("readTimeout");
-
-            URL url = new URL(urlString);
-            HttpURLConnection conn = makeUrlConnection(url, method, connectTimeout, readTimeout, headers, params);
+    /**
+     * Requests and uploads can be queued, the queue replays them without the original call
+     */
+    private boolean canQueueOffline(PluginCall call) {
+        String method = call.getMethodName();
+        return call.getBoolean("queueOffline", false) && ("request".equals(method) || "uploadFile".equals(method));
+    }
 
-            buildResponse(call, conn);
-        } catch (MalformedURLException ex) {
-            call.reject("Invalid URL", ex);
+    private void queueOffline(PluginCall call) {
+        try {
+            JSObject ret = new JSObject();
+            ret.put("queued", true);
+            ret.put("queueId", offlineQueue.add(call.getMethodName(), call.getData()));
+            call.resolve(ret);
         } catch (IOException ex) {
-            call.reject("Error", ex);
-        } catch (Exception ex) {
-            call.reject("Error", ex);
+            call.reject("Unable to queue the request", ex);
         }
     }
 
-    private void mutate(PluginCall call, String urlString, String method, JSObject headers) {
-        try {
-            Integer connectTimeout = call.getInt("connectTimeout");
-            Integer readTimeout = call.getInt("readTimeout");
-            JSObject data = call.getObject("data");
-
-            URL url = new URL(urlString);
+    private JSObject download(PluginCall call, final RequestHandle handle) throws Exception {
+        String urlString = call.getString("url");
+        String filePath = call.getString("filePath");
+        String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+        final JSObject headers = call.getObject("headers");
+        final JSObject params = call.getObject("params");
 
-            HttpURLConnection conn = makeUrlConnection(url, method, connectTimeout, readTimeout, headers, null);
+        final Integer connectTimeout = call.getInt("connectTimeout");
+        final Integer readTimeout = call.getInt("readTimeout");
+        int segments = call.getInt("segments", downloadSegments);
+        final HttpTransport transport = getTransport(call.getData());
 
-            conn.setDoOutput(true);
+        final URL url = new URL(urlString);
 
-            setRequestBody(conn, data, headers);
+        final File file = FilesystemUtils.getFileObject(getContext(), filePath, fileDirectory);
 
-            conn.connect();
+        final JSObject checksum = call.getObject("checksum");
+        final boolean segmented = segments > 1;
+        HttpURLConnection conn = connect(
+            handle,
+            call.getData(),
+            "GET",
+            new Callable<HttpURLConnection>() {
 
-            buildResponse(call, conn);
-        } catch (MalformedURLException ex) {
-            call.reject("Invalid URL", ex);
-        } catch (IOException ex) {
-            call.reject("Error", ex);
-        } catch (Exception ex) {
-            call.reject("Error", ex);
-        }
-    }
+                @Override
+                public HttpURLConnection call() throws Exception {
+                    HttpURLConnection conn = handle.track(
+                        makeUrlConnection(transport, null, url, "GET", connectTimeout, readTimeout, false, headers, params)
+                    );
+                    if (segmented) {
+                        SegmentedDownloader.requestRange(conn);
+                    }
+                    if (checksum != null && conn.getRequestProperty("Accept-Encoding") == null) {
+                        // Digest headers describe the body as sent, not as transparently decompressed
+                        conn.setRequestProperty("Accept-Encoding", "identity");
+                    }
+                    establishConnection(conn, handle.getTimings());
+                    return conn;
+                }
+            }
+        );
 
-    private HttpURLConnection makeUrlConnection(
-        URL url,
-        String method,
-        Integer connectTimeout,
-        Integer readTimeout,
-        JSObject headers,
-        JSObject params
-    )
-        throws Exception {
-        if (params != null) {
-            url = setParams(url, params);
-        }
+        long totalLength = segmented ? SegmentedDownloader.getRangeLength(conn) : -1;
+        ChecksumVerifier checksumVerifier = makeChecksumVerifier(checksum, conn);
+
+        if (totalLength >= downloadSegmentThreshold) {
+            // The call holds one slot of the host, the other segments must fit in its limits as well
+            String host = getHost(urlString);
+            RequestPriority priority = RequestPriority.parse(call.getString("priority"), RequestPriority.BACKGROUND);
+            int extraSlots = dispatcher.reserve(host, priority, segments - 1);
+            try {
+                SegmentedDownloader downloader = new SegmentedDownloader(
+                    urlString,
+                    file,
+                    1 + extraSlots,
+                    new SegmentedDownloader.ConnectionFactory() {
 
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+                        @Override
+                        public HttpURLConnection openConnection() throws Exception {
+                            return handle.track(
+                                makeUrlConnection(transport, null, url, "GET", connectTimeout, readTimeout, false, headers, params)
+                            );
+                        }
+                    }
+                );
+                downloader.setProgressEmitter(makeProgressEmitter(call.getData(), "DOWNLOAD", totalLength));
+                downloader.setChecksumVerifier(checksumVerifier);
+                downloader.setBandwidthLimiter(handle.getBandwidthLimiter());
+                downloader.download(conn, totalLength);
+            } finally {
+                dispatcher.release(host, priority, extraSlots);
+            }
+            handle.getTimings().responseEnded(totalLength);
+        } else {
+            ProgressEmitter progressEmitter = makeProgressEmitter(
+                call.getData(),
+                "DOWNLOAD",
+                ResponseReader.parseContentLength(conn.getHeaderField("Content-Length"))
+            );
+
+            // Written next to the target and moved there once complete, so a
+            // failed download never leaves a truncated file at the final path
+            File partFile = new File(file.getPath() + SegmentedDownloader.PART_SUFFIX);
+            new File(file.getPath() + SegmentedDownloader.META_SUFFIX).delete();
+
+            BandwidthLimiter bandwidthLimiter = handle.getBandwidthLimiter();
+            InputStream is = conn.getInputStream();
+            FileOutputStream fos = new FileOutputStream(partFile, false);
+            long received = 0;
+            boolean complete = false;
+            try {
+                byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+                int len;
+                while ((len = is.read(buffer)) > 0) {
+                    if (bandwidthLimiter != null) {
+                        bandwidthLimiter.acquire(len);
+                    }
+                    fos.write(buffer, 0, len);
+                    if (checksumVerifier != null) {
+                        checksumVerifier.update(buffer, 0, len);
+                    }
+                    received += len;
+                    if (progressEmitter != null) {
+                        progressEmitter.add(len);
+                    }
+                }
+                fos.getFD().sync();
+                complete = true;
+            } finally {
+                is.close();
+                fos.close();
+                if (!complete) {
+                    partFile.delete();
+                }
+            }
+            handle.getTimings().responseEnded(received);
 
-        conn.setAllowUserInteraction(false);
-        conn.setRequestMethod(method);
+            if (checksumVerifier != null) {
+                try {
+                    checksumVerifier.verify();
+                } catch (ChecksumVerifier.MismatchException ex) {
+                    partFile.delete();
+                    throw ex;
+                }
+            }
+            if (!partFile.renameTo(file)) {
+                partFile.delete();
+                throw new IOException("Unable to move download to " + file.getAbsolutePath());
+            }
 
-        if (connectTimeout != null) {
-            conn.setConnectTimeout(connectTimeout);
+            if (progressEmitter != null) {
+                progressEmitter.complete();
+            }
         }
 
-        if (readTimeout != null) {
-            conn.setReadTimeout(readTimeout);
+        JSObject ret = new JSObject();
+        ret.put("path", file.getAbsolutePath());
+        if (checksumVerifier != null) {
+            ret.put("checksum", checksumVerifier.verify());
         }
-
-        setRequestHeaders(conn, headers);
-
-        return conn;
+        return ret;
     }
 
-    @SuppressWarnings("unused")
-    @PluginMethod
-    public void downloadFile(PluginCall call) {
-        try {
-            saveCall(call);
-            String urlString = call.getString("url");
-            String filePath = call.getString("filePath");
-            String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
-            JSObject headers = call.getObject("headers");
-            JSObject params = call.getObject("params");
+    /**
+     * Creates a verifier if the call asked for a checksum. The expected
+     * value is the one given in the options, or else the one in the Digest
+     * or Content-MD5 response header. Without either the checksum is only
+     * computed.
+     */
+    private static ChecksumVerifier makeChecksumVerifier(JSObject checksum, HttpURLConnection conn) {
+        if (checksum == null) {
+            return null;
+        }
+        String algorithm = checksum.getString("algorithm", ChecksumVerifier.SHA_256);
+        String expected = checksum.getString("value");
+        if (expected == null) {
+            expected = ChecksumVerifier.getExpected(algorithm, conn.getHeaderField("Digest"), conn.getHeaderField("Content-MD5"));
+        }
+        return new ChecksumVerifier(algorithm, expected);
+    }
 
-            Integer connectTimeout = call.getInt("connectTimeout");
-            Integer readTimeout = call.getInt("readTimeout");
+    /**
+     * Uploads a single file in chunks with the tus protocol, resuming an
+     * earlier upload of the same file if the server still has it
+     */
+    private JSObject uploadResumable(JSObject options, final RequestHandle handle, URL url, File file) throws Exception {
+        final Integer connectTimeout = options.getInteger("connectTimeout");
+        final Integer readTimeout = options.getInteger("readTimeout");
+        final JSObject headers = options.getJSObject("headers");
+        int chunkSize = options.getInteger("chunkSize", ResumableUploader.DEFAULT_CHUNK_SIZE);
+        final HttpTransport transport = getTransport(options);
+
+        ResumableUploader uploader = new ResumableUploader(
+            url,
+            file,
+            chunkSize,
+            new ResumableUploader.ConnectionFactory() {
 
-            URL url = new URL(urlString);
+                @Override
+                public HttpURLConnection openConnection(URL url, String method) throws Exception {
+                    return handle.track(makeUrlConnection(transport, null, url, method, connectTimeout, readTimeout, false, headers, null));
+                }
+            }
+        );
 
-            if (
-                !FilesystemUtils.isPublicDirectory(fileDirectory) ||
-                isStoragePermissionGranted(Http.HTTP_REQUEST_DOWNLOAD_WRITE_PERMISSIONS, Manifest.permission.WRITE_EXTERNAL_STORAGE)
-            ) {
-                this.freeSavedCall();
+        final SharedPreferences preferences = getContext().getSharedPreferences(UPLOADS_PREFERENCES, Context.MODE_PRIVATE);
+        uploader.setUploadUrlStore(
+            new ResumableUploader.UploadUrlStore() {
 
-                final File file = FilesystemUtils.getFileObject(getContext(), filePath, fileDirectory);
+                @Override
+                public String get(String fingerprint) {
+                    return preferences.getString(fingerprint, null);
+                }
 
-                HttpURLConnection conn = makeUrlConnection(url, "GET", connectTimeout, readTimeout, headers, params);
+                @Override
+                public void put(String fingerprint, String uploadUrl) {
+                    preferences.edit().putString(fingerprint, uploadUrl).apply();
+                }
 
-                InputStream is = conn.getInputStream();
+                @Override
+                public void remove(String fingerprint) {
+                    preferences.edit().remove(fingerprint).apply();
+                }
+            }
+        );
+        uploader.setUploadUrl(options.getString("uploadUrl"));
+        uploader.setMetadata("filename " + Base64.encodeToString(file.getName().getBytes(StandardCharsets.UTF_8), Base64.NO_WRAP));
 
-                FileOutputStream fos = new FileOutputStream(file, false);
+        ProgressEmitter progressEmitter = makeProgressEmitter(options, "UPLOAD", file.length());
+        uploader.setProgressEmitter(progressEmitter);
+        uploader.setBandwidthLimiter(handle.getBandwidthLimiter());
 
-                byte[] buffer = new byte[1024];
-                int len;
+        String uploadUrl = uploader.upload();
 
-                while ((len = is.read(buffer)) > 0) {
-                    fos.write(buffer, 0, len);
-                }
+        if (progressEmitter != null) {
+            progressEmitter.complete();
+        }
 
-                is.close();
-                fos.close();
+        JSObject ret = new JSObject();
+        ret.put("status", uploader.getResponseCode());
+        ret.put("uploadUrl", uploadUrl);
+        return ret;
+    }
 
-                call.resolve(
-                    new JSObject() {
+    /**
+     * Creates an emitter for "progress" events if the call asked for them
+     *
+     * @param type DOWNLOAD or UPLOAD
+     * @param contentLength the expected number of bytes, or -1 if unknown
+     * @return the emitter, or null if the call didn't set the progress option
+     */
+    private ProgressEmitter makeProgressEmitter(final JSObject options, final String type, long contentLength) {
+        if (!options.getBoolean("progress", false)) {
+            return null;
+        }
+        final String url = options.getString("url");
+        return new ProgressEmitter(
+            contentLength,
+            new ProgressEmitter.Listener() {
 
-                        {
-                            put("path", file.getAbsolutePath());
-                        }
-                    }
-                );
+                @Override
+                public void onProgress(long bytes, long contentLength) {
+                    JSObject ret = new JSObject();
+                    ret.put("type", type);
+                    ret.put("url", url);
+                    ret.put("bytes", bytes);
+                    ret.put("contentLength", contentLength);
+                    notifyListeners("progress", ret);
+                }
             }
-        } catch (MalformedURLException ex) {
-            call.reject("Invalid URL", ex);
-        } catch (IOException ex) {
-            call.reject("Error", ex);
-        } catch (Exception ex) {
-            call.reject("Error", ex);
-        }
+        );
     }
 
     private boolean isStoragePermissionGranted(int permissionRequestCode, String permission) {
@@ -278,40 +1496,158 @@ public class Http extends Plugin {
 
     @SuppressWarnings("unused")
     @PluginMethod
-    public void uploadFile(PluginCall call) {
-        String urlString = call.getString("url");
-        String filePath = call.getString("filePath");
-        String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
-        String name = call.getString("name", "file");
-        Integer connectTimeout = call.getInt("connectTimeout");
-        Integer readTimeout = call.getInt("readTimeout");
-        JSObject headers = call.getObject("headers");
-        JSObject params = call.getObject("params");
-        JSObject data = call.getObject("data");
+    public void uploadFile(final PluginCall call) {
+        if (!applyClient(call) || queueIfOffline(call)) {
+            return;
+        }
 
-        try {
-            saveCall(call);
-            URL url = new URL(urlString);
+        boolean publicDirectory = FilesystemUtils.isPublicDirectory(call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS));
 
-            if (
-                !FilesystemUtils.isPublicDirectory(fileDirectory) ||
-                isStoragePermissionGranted(Http.HTTP_REQUEST_UPLOAD_READ_PERMISSIONS, Manifest.permission.WRITE_EXTERNAL_STORAGE)
-            ) {
-                this.freeSavedCall();
-                File file = FilesystemUtils.getFileObject(getContext(), filePath, fileDirectory);
+        JSArray files = call.getArray("files", new JSArray());
+        for (int i = 0; i < files.length(); i++) {
+            JSONObject entry = files.optJSONObject(i);
+            if (entry != null && FilesystemUtils.isPublicDirectory(entry.optString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS))) {
+                publicDirectory = true;
+            }
+        }
+
+        saveCall(call);
+
+        if (
+            !publicDirectory ||
+            isStoragePermissionGranted(Http.HTTP_REQUEST_UPLOAD_READ_PERMISSIONS, Manifest.permission.WRITE_EXTERNAL_STORAGE)
+        ) {
+            this.freeSavedCall();
+
+            enqueueTransfer(
+                call,
+                new Transfer() {
+
+                    @Override
+                    public JSObject run(RequestHandle handle) throws Exception {
+                        return upload(call.getData(), handle);
+                    }
+                }
+            );
+        }
+    }
+
+    private JSObject upload(final JSObject options, final RequestHandle handle) throws Exception {
+        String urlString = options.getString("url");
+        String filePath = options.getString("filePath");
+        String fileDirectory = options.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+
+        final URL url = new URL(urlString);
 
-                HttpURLConnection conn = makeUrlConnection(url, "POST", connectTimeout, readTimeout, headers, null);
-                conn.setDoOutput(true);
+        if (options.getBoolean("resumable", false)) {
+            return uploadResumable(options, handle, url, FilesystemUtils.getFileObject(getContext(), filePath, fileDirectory));
+        }
 
-                FormUploader builder = new FormUploader(conn);
-                builder.addFilePart(name, file);
-                builder.finish();
+        HttpURLConnection conn = connect(
+            handle,
+            options,
+            "POST",
+            new Callable<HttpURLConnection>() {
 
-                buildResponse(call, conn);
+                @Override
+                public HttpURLConnection call() throws Exception {
+                    return sendForm(options, handle, url);
+                }
             }
-        } catch (Exception ex) {
-            call.reject("Error", ex);
+        );
+
+        return buildResponse(options, conn, handle.getTimings());
+    }
+
+    private HttpURLConnection sendForm(JSObject options, RequestHandle handle, URL url) throws Exception {
+        String filePath = options.getString("filePath");
+        String fileDirectory = options.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+        String name = options.getString("name", "file");
+        JSONArray files = options.optJSONArray("files");
+        if (files == null) {
+            files = new JSONArray();
+        }
+        Integer connectTimeout = options.getInteger("connectTimeout");
+        Integer readTimeout = options.getInteger("readTimeout");
+        JSObject headers = options.getJSObject("headers");
+        JSObject data = options.getJSObject("data");
+
+        HttpURLConnection conn = handle.track(
+            makeUrlConnection(getTransport(options), null, url, "POST", connectTimeout, readTimeout, false, headers, null)
+        );
+        conn.setDoOutput(true);
+
+        ProgressEmitter progressEmitter = makeProgressEmitter(options, "UPLOAD", -1);
+
+        FormUploader builder = new FormUploader(conn);
+        builder.setProgressEmitter(progressEmitter);
+        builder.setBandwidthLimiter(handle.getBandwidthLimiter());
+
+        if (data != null) {
+            RequestEncoder.addFormFields(builder, data);
+        }
+
+        if (filePath != null) {
+            builder.addFilePart(name, FilesystemUtils.getFileObject(getContext(), filePath, fileDirectory));
+        }
+
+        List<String> chunks = getBase64Chunks(options);
+        if (chunks != null) {
+            builder.addDataPart(name, options.getString("fileName", DEFAULT_DATA_FILE_NAME), options.getString("contentType"), chunks);
+        }
+
+        for (int i = 0; i < files.length(); i++) {
+            JSONObject entry = files.getJSONObject(i);
+            List<String> entryChunks = getBase64Chunks(entry);
+            if (entryChunks != null) {
+                builder.addDataPart(
+                    entry.optString("name", name),
+                    entry.optString("fileName", DEFAULT_DATA_FILE_NAME),
+                    entry.optString("contentType", null),
+                    entryChunks
+                );
+                continue;
+            }
+            File file = FilesystemUtils.getFileObject(
+                getContext(),
+                entry.getString("filePath"),
+                entry.optString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS)
+            );
+            builder.addFilePart(entry.optString("name", name), file);
+        }
+
+        builder.prepare();
+        establishConnection(conn, handle.getTimings());
+        builder.finish();
+        handle.getTimings().addBytesSent(builder.getBytesWritten());
+
+        if (progressEmitter != null) {
+            progressEmitter.complete();
+        }
+
+        return conn;
+    }
+
+    /**
+     * Reads base64Data, either a string or an array of separately encoded chunks
+     *
+     * @return the chunks, or null if there is no base64Data
+     */
+    private static List<String> getBase64Chunks(JSONObject options) throws JSONException {
+        Object value = options.opt("base64Data");
+        if (value == null || value == JSONObject.NULL) {
+            return null;
         }
+        List<String> chunks = new ArrayList<>();
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.length(); i++) {
+                chunks.add(array.getString(i));
+            }
+        } else {
+            chunks.add(value.toString());
+        }
+        return chunks;
     }
 
     @SuppressWarnings("unused")
@@ -400,134 +1736,142 @@ public class Http extends Plugin {
         call.resolve();
     }
 
+    @SuppressWarnings("unused")
     @PluginMethod
-    private void bind(final PluginCall call) {
-        boolean canWriteFlag = false;
-
-        if (API_VERSION >= Build.VERSION_CODES.LOLLIPOP) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                canWriteFlag = true;
-                // Only need ACTION_MANAGE_WRITE_SETTINGS on 6.0.0, regular permissions suffice on later versions
-            } else if (Build.VERSION.RELEASE.toString().equals("6.0.1")) {
-                canWriteFlag = true;
-                // Don't need ACTION_MANAGE_WRITE_SETTINGS on 6.0.1, if we can positively identify it treat like 7+
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                // On M 6.0.0 (N+ or higher and 6.0.1 hit above), we need ACTION_MANAGE_WRITE_SETTINGS to forceWifi.
-                canWriteFlag = Settings.System.canWrite(this.context);
-                if (!canWriteFlag) {
-                    Intent intent = new Intent(Settings.ACTION_MANAGE_WRITE_SETTINGS);
-                    intent.setData(Uri.parse("package:" + this.context.getPackageName()));
-                    intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                    this.context.startActivity(intent);
-                }
-            }
-
-            if (
-                ((API_VERSION >= Build.VERSION_CODES.M) && canWriteFlag) ||
-                ((API_VERSION >= Build.VERSION_CODES.LOLLIPOP) && !(API_VERSION >= Build.VERSION_CODES.M))
-            ) {
-                final ConnectivityManager manager = (ConnectivityManager) this.context.getSystemService(Context.CONNECTIVITY_SERVICE);
-                NetworkRequest networkRequest = new NetworkRequest.Builder().addTransportType(NetworkCapabilities.TRANSPORT_WIFI).build();
-                final Http that = this;
-                manager.requestNetwork(
-                    networkRequest,
-                    new ConnectivityManager.NetworkCallback() {
+    public void getCacheStats(PluginCall call) {
+        int hitCount = 0;
+        int networkCount = 0;
+        int requestCount = 0;
+        long size = 0;
+        long maxSize = 0;
+        if (responseCache != null) {
+            hitCount += responseCache.getHitCount();
+            networkCount += responseCache.getNetworkCount();
+            requestCount += responseCache.getRequestCount();
+            size += responseCache.size();
+            maxSize += responseCache.maxSize();
+        }
+        synchronized (this) {
+            if (okHttpCache != null) {
+                hitCount += okHttpCache.hitCount();
+                networkCount += okHttpCache.networkCount();
+                requestCount += okHttpCache.requestCount();
+                try {
+                    size += okHttpCache.size();
+                } catch (IOException ex) {
+                    Log.w(getLogTag(), "Unable to read OkHttp cache size", ex);
+                }
+                maxSize += okHttpCache.maxSize();
+            }
+        }
 
-                        @Override
-                        public void onAvailable(Network network) {
-                            if (API_VERSION >= Build.VERSION_CODES.M) {
-                                manager.bindProcessToNetwork(network);
-                            } else {
-                                //This method was deprecated in API level 23
-                                ConnectivityManager.setProcessDefaultNetwork(network);
-                            }
-                            try {} catch (Exception e) {
-                                e.printStackTrace();
-                            }
-                            manager.unregisterNetworkCallback(this);
+        JSObject ret = new JSObject();
+        ret.put("hitCount", hitCount);
+        ret.put("networkCount", networkCount);
+        ret.put("requestCount", requestCount);
+        ret.put("size", size);
+        ret.put("maxSize", maxSize);
+        call.resolve(ret);
+    }
 
-                            that.createRequest(call);
-                        }
-                    }
-                );
+    @SuppressWarnings("unused")
+    @PluginMethod
+    public void clearCache(PluginCall call) {
+        if (responseCache != null) {
+            try {
+                responseCache.delete();
+            } catch (IOException ex) {
+                call.reject("Unable to clear cache", ex);
+                return;
+            } finally {
+                responseCache = installResponseCache();
+            }
+        }
+        synchronized (this) {
+            if (okHttpCache != null) {
+                try {
+                    okHttpCache.evictAll();
+                } catch (IOException ex) {
+                    call.reject("Unable to clear cache", ex);
+                    return;
+                }
             }
         }
+        call.resolve();
     }
 
-    private void unbind() {
-        if (API_VERSION >= Build.VERSION_CODES.M) {
-            ConnectivityManager manager = (ConnectivityManager) this.context.getSystemService(Context.CONNECTIVITY_SERVICE);
-            manager.bindProcessToNetwork(null);
-        } else if (API_VERSION >= Build.VERSION_CODES.LOLLIPOP) {
-            ConnectivityManager.setProcessDefaultNetwork(null);
+    /**
+     * Requesting a specific network needs ACTION_MANAGE_WRITE_SETTINGS on
+     * Android 6.0.0, the settings screen is opened if it hasn't been granted
+     */
+    private boolean canBindToWifi() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return true;
+        } else if (Build.VERSION.RELEASE.equals("6.0.1")) {
+            // Don't need ACTION_MANAGE_WRITE_SETTINGS on 6.0.1, if we can positively identify it treat like 7+
+            return true;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            if (Settings.System.canWrite(this.context)) {
+                return true;
+            }
+            Intent intent = new Intent(Settings.ACTION_MANAGE_WRITE_SETTINGS);
+            intent.setData(Uri.parse("package:" + this.context.getPackageName()));
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            this.context.startActivity(intent);
+            return false;
         }
+        return true;
     }
 
-    private void buildResponse(PluginCall call, HttpURLConnection conn) throws Exception {
-        boolean bindToWifi = call.getBoolean("bindToWifi", false);
+    private JSObject buildResponse(JSObject options, HttpURLConnection conn, RequestTimings timings) throws Exception {
+        ResponseType responseType = ResponseType.parse(options.getString("responseType"));
         int statusCode = conn.getResponseCode();
 
         JSObject ret = new JSObject();
         ret.put("status", statusCode);
-        ret.put("headers", makeResponseHeaders(conn));
+        ret.put("headers", ResponseDecoder.getHeaders(conn));
 
         InputStream errorStream = conn.getErrorStream();
         InputStream stream = (errorStream != null ? errorStream : conn.getInputStream());
 
-        BufferedReader in = new BufferedReader(new InputStreamReader(stream));
-        StringBuilder builder = new StringBuilder();
-        String line;
-        while ((line = in.readLine()) != null) {
-            builder.append(line);
-        }
-        in.close();
-
-        Log.d(getLogTag(), "GET request completed, got data");
-
-        String contentType = conn.getHeaderField("Content-Type");
-
-        if (contentType != null) {
-            if (contentType.contains("application/json")) {
-                try {
-                    JSObject jsonValue = new JSObject(builder.toString());
-                    ret.put("data", jsonValue);
-                } catch (JSONException e) {
-                    JSArray jsonValue = new JSArray(builder.toString());
-                    ret.put("data", jsonValue);
-                }
-            } else {
-                ret.put("data", builder.toString());
-            }
+        long contentLength = ResponseReader.parseContentLength(conn.getHeaderField("Content-Length"));
+        int threshold = options.getInteger("responseFileThreshold", responseFileThreshold);
+        ResponseReader.Body body;
+        if (!ResponseReader.hasBody(conn.getRequestMethod(), statusCode)) {
+            stream.close();
+            body = ResponseReader.empty();
+        } else if (threshold > 0) {
+            File file = new File(getResponseFilesDir(), UUID.randomUUID().toString());
+            body = ResponseReader.read(stream, contentLength, threshold, file);
         } else {
-            ret.put("data", builder.toString());
-        }
-
-        if (bindToWifi) {
-            this.unbind();
+            body = ResponseReader.read(stream, contentLength);
         }
+        timings.responseEnded(body.length());
 
-        call.resolve(ret);
-    }
-
-    private JSArray makeResponseHeaders(HttpURLConnection conn) {
-        JSArray ret = new JSArray();
-
-        for (Map.Entry<String, List<String>> entries : conn.getHeaderFields().entrySet()) {
-            JSObject header = new JSObject();
+        Log.d(getLogTag(), conn.getRequestMethod() + " request completed with status " + statusCode + ", got " + body.length() + " bytes");
 
-            String val = "";
-            for (String headerVal : entries.getValue()) {
-                val += headerVal + ", ";
-            }
+        if (body.getFile() != null) {
+            // Too large to send over the bridge, the caller reads the file instead
+            ret.put("path", body.getFile().getAbsolutePath());
+            ret.put("size", body.length());
+            return ret;
+        }
 
-            header.put(entries.getKey(), val);
-            ret.put(header);
+        if (body.size() == 0) {
+            // An empty body isn't valid JSON, whatever the Content-Type says
+            ret.put("data", "");
+        } else {
+            String contentType = conn.getHeaderField("Content-Type");
+            ret.put("data", ResponseDecoder.decode(body, contentType, responseType, options.getBoolean("rawJson", false)));
         }
 
         return ret;
     }
 
     private void setRequestHeaders(HttpURLConnection conn, JSObject headers) {
+        if (headers == null) {
+            return;
+        }
         Iterator<String> keys = headers.keys();
         while (keys.hasNext()) {
             String key = keys.next();
@@ -536,71 +1880,45 @@ public class Http extends Plugin {
         }
     }
 
-    private URL setParams(URL url, JSObject params) {
-        String newQuery = url.getQuery();
-        Iterator<String> keys = params.keys();
-        while (keys.hasNext()) {
-            String key = keys.next();
-            String value = params.getString(key);
-            if (newQuery == null) {
-                newQuery = key + "=" + value;
-            } else {
-                newQuery += "&" + key + "=" + value;
-            }
-        }
-        try {
-            URI uri = url.toURI();
-            URI newUri = new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), newQuery, uri.getFragment());
-            return newUri.toURL();
-        } catch (URISyntaxException | MalformedURLException e) {
-            return url;
-        }
-    }
-
-    private void writeToOutputStream(OutputStream out, String data) throws IOException {
+    private void writeToOutputStream(OutputStream out, byte[] data) throws IOException {
         try (DataOutputStream os = new DataOutputStream(out)) {
-            os.write(data.getBytes(StandardCharsets.UTF_8));
+            os.write(data);
             os.flush();
         }
     }
 
-    private void setRequestBody(HttpURLConnection conn, JSObject data, JSObject headers) throws IOException, JSONException {
+    /**
+     * Connects and writes the request body. The body is set up before the
+     * connection so that a multipart body can be streamed.
+     */
+    private void setRequestBody(HttpURLConnection conn, JSObject data, JSObject headers, RequestTimings timings)
+        throws IOException, JSONException {
         String contentType = conn.getRequestProperty("Content-Type");
+        byte[] body = RequestEncoder.encodeBody(contentType, data);
+        FormUploader uploader = null;
 
-        if (contentType != null) {
-            if (contentType.contains("application/json")) {
-                writeToOutputStream(conn.getOutputStream(), data.toString());
-            } else if (contentType.contains("application/x-www-form-urlencoded")) {
-                StringBuilder builder = new StringBuilder();
-
-                Iterator<String> keys = data.keys();
-                while (keys.hasNext()) {
-                    String key = keys.next();
-                    Object d = data.get(key);
-                    if (d != null) {
-                        builder.append(key + "=" + URLEncoder.encode(d.toString(), "UTF-8"));
-                        if (keys.hasNext()) {
-                            builder.append("&");
-                        }
-                    }
-                }
-
-                writeToOutputStream(conn.getOutputStream(), builder.toString());
-            } else if (contentType.contains("multipart/form-data")) {
-                FormUploader uploader = new FormUploader(conn);
+        if (body == null && data != null && contentType != null && contentType.contains("multipart/form-data")) {
+            uploader = new FormUploader(conn);
+            RequestEncoder.addFormFields(uploader, data);
+            uploader.prepare();
+        }
 
-                Iterator<String> keys = data.keys();
-                while (keys.hasNext()) {
-                    String key = keys.next();
+        establishConnection(conn, timings);
 
-                    String d = data.get(key).toString();
-                    uploader.addFormField(key, d);
-                }
-                uploader.finish();
-            }
+        if (body != null) {
+            writeToOutputStream(conn.getOutputStream(), body);
+            timings.addBytesSent(body.length);
+        } else if (uploader != null) {
+            uploader.finish();
+            timings.addBytesSent(uploader.getBytesWritten());
         }
     }
 
+    private String getHost(String url) {
+        URI uri = getUri(url);
+        return uri != null ? uri.getHost() : null;
+    }
+
     private URI getUri(String url) {
         try {
             return new URI(url);
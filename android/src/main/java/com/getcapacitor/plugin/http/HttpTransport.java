@@ -0,0 +1,28 @@
+package com.getcapacitor.plugin.http;
+
+import android.net.Network;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Opens the connections requests are sent on. Headers, bodies, retries and
+ * timings are handled on top of the connection the same way for every
+ * transport.
+ */
+public interface HttpTransport {
+    /**
+     * Opens a connection, it is not connected yet
+     *
+     * @param url the URL to connect to
+     * @param network the network to connect on, or null for the default network
+     * @return the connection
+     * @throws IOException
+     */
+    HttpURLConnection openConnection(URL url, Network network) throws IOException;
+
+    /**
+     * Closes idle pooled connections
+     */
+    void evictConnections();
+}
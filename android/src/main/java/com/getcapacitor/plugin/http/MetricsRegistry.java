@@ -0,0 +1,159 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aggregates the timings of completed calls per host.
+ *
+ * Each phase keeps its most recent samples, so percentiles describe
+ * current conditions rather than the whole lifetime of the app.
+ */
+public class MetricsRegistry {
+    public static final int DEFAULT_SAMPLE_SIZE = 512;
+
+    private static final String[] PHASES = { "queue", "dns", "connect", "tls", "ttfb", "transfer", "total" };
+
+    private final Map<String, HostMetrics> hosts = new HashMap<>();
+    private final int sampleSize;
+
+    public MetricsRegistry(int sampleSize) {
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("sampleSize < 1: " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Records a completed call
+     *
+     * @param host the host of the call
+     * @param timings the timings of the call
+     * @param failed whether the call failed
+     */
+    public synchronized void record(String host, RequestTimings timings, boolean failed) {
+        HostMetrics metrics = hosts.get(host);
+        if (metrics == null) {
+            metrics = new HostMetrics();
+            hosts.put(host, metrics);
+        }
+
+        metrics.count++;
+        if (failed) {
+            metrics.failures++;
+        }
+        if (!timings.hasResponse()) {
+            return;
+        }
+        metrics.bytesSent += timings.getBytesSent();
+        metrics.bytesReceived += timings.getBytesReceived();
+        double[] values = toPhases(timings);
+        for (int i = 0; i < PHASES.length; i++) {
+            metrics.samples[i].add(values[i]);
+        }
+    }
+
+    /**
+     * @return the metrics of every host, keyed by host
+     */
+    public synchronized JSObject getMetrics() {
+        JSObject ret = new JSObject();
+        for (Map.Entry<String, HostMetrics> entry : hosts.entrySet()) {
+            HostMetrics metrics = entry.getValue();
+            JSObject host = new JSObject();
+            host.put("count", metrics.count);
+            host.put("failures", metrics.failures);
+            host.put("bytesSent", metrics.bytesSent);
+            host.put("bytesReceived", metrics.bytesReceived);
+            for (int i = 0; i < PHASES.length; i++) {
+                host.put(PHASES[i], metrics.samples[i].getPercentiles());
+            }
+            ret.put(entry.getKey(), host);
+        }
+        return ret;
+    }
+
+    public synchronized void reset() {
+        hosts.clear();
+    }
+
+    /**
+     * @return the timings of a single call, in milliseconds
+     */
+    public static JSObject toJSObject(RequestTimings timings) {
+        JSObject ret = new JSObject();
+        double[] values = toPhases(timings);
+        for (int i = 0; i < PHASES.length; i++) {
+            ret.put(PHASES[i], values[i]);
+        }
+        ret.put("bytesSent", timings.getBytesSent());
+        ret.put("bytesReceived", timings.getBytesReceived());
+        return ret;
+    }
+
+    private static double[] toPhases(RequestTimings timings) {
+        return new double[] {
+            timings.getQueue(),
+            timings.getDns(),
+            timings.getConnect(),
+            timings.getTls(),
+            timings.getTtfb(),
+            timings.getTransfer(),
+            timings.getTotal()
+        };
+    }
+
+    private class HostMetrics {
+        long count;
+        long failures;
+        long bytesSent;
+        long bytesReceived;
+        final Samples[] samples = new Samples[PHASES.length];
+
+        HostMetrics() {
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = new Samples(sampleSize);
+            }
+        }
+    }
+
+    /**
+     * The most recent values of a phase
+     */
+    private static class Samples {
+        private final double[] values;
+        private int size;
+        private int next;
+
+        Samples(int capacity) {
+            values = new double[capacity];
+        }
+
+        void add(double value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            size = Math.min(size + 1, values.length);
+        }
+
+        JSObject getPercentiles() {
+            JSObject ret = new JSObject();
+            if (size == 0) {
+                return ret;
+            }
+            double[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            ret.put("p50", percentile(sorted, 0.5));
+            ret.put("p95", percentile(sorted, 0.95));
+            ret.put("p99", percentile(sorted, 0.99));
+            ret.put("max", sorted[sorted.length - 1]);
+            return ret;
+        }
+
+        private static double percentile(double[] sorted, double p) {
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.getcapacitor.plugin.http;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.net.ssl.SSLException;
+import org.json.JSONException;
+
+/**
+ * Calls that are sent once the device is online again.
+ *
+ * Entries are appended to a journal of JSON lines and synced to disk before
+ * they are acknowledged, so they survive the app being killed. When a
+ * validated network becomes available the entries are sent in the order they
+ * were queued, a limited number at a time. An entry that fails with a network
+ * error again stays queued and replay stops until the next network.
+ */
+public class OfflineQueue {
+    public static final int DEFAULT_MAX_CONCURRENT_REPLAYS = 2;
+
+    private static final String TAG = "OfflineQueue";
+
+    /**
+     * Sends a queued call
+     */
+    public interface Sender {
+        /**
+         * @param method the plugin method the call was made to
+         * @param options the options of the call
+         * @param callback receives the result
+         */
+        void send(String method, JSObject options, RequestCallback callback);
+    }
+
+    /**
+     * Receives the results of replayed calls
+     */
+    public interface Listener {
+        /**
+         * @param entry the queued entry
+         * @param response the response, or null if the call failed
+         * @param error the error, or null if the call succeeded
+         */
+        void onReplayed(JSObject entry, JSObject response, Exception error);
+    }
+
+    private final File journal;
+    private final ConnectivityManager connectivityManager;
+    private final int maxConcurrentReplays;
+
+    private final List<JSObject> entries = new ArrayList<>();
+    private final Set<String> inFlight = new HashSet<>();
+
+    private Sender sender;
+    private Listener listener;
+    private ConnectivityManager.NetworkCallback networkCallback;
+
+    public OfflineQueue(Context context, File journal, int maxConcurrentReplays) {
+        if (maxConcurrentReplays < 1) {
+            throw new IllegalArgumentException("maxConcurrentReplays < 1: " + maxConcurrentReplays);
+        }
+        this.journal = journal;
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.maxConcurrentReplays = maxConcurrentReplays;
+    }
+
+    /**
+     * Loads the journal and starts replaying when a network is available
+     */
+    public synchronized void start(Sender sender, Listener listener) {
+        if (networkCallback != null) {
+            return;
+        }
+        this.sender = sender;
+        this.listener = listener;
+        load();
+
+        NetworkRequest networkRequest = new NetworkRequest.Builder().addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET).build();
+        networkCallback =
+            new ConnectivityManager.NetworkCallback() {
+
+                @Override
+                public void onAvailable(Network network) {
+                    // Networks aren't validated before Android 6
+                    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+                        replay();
+                    }
+                }
+
+                @Override
+                public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                    if (
+                        Build.VERSION.SDK_INT >= Build.VERSION_CODES.M &&
+                        capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)
+                    ) {
+                        replay();
+                    }
+                }
+            };
+        connectivityManager.registerNetworkCallback(networkRequest, networkCallback);
+
+        if (isOnline()) {
+            replay();
+        }
+    }
+
+    /**
+     * Stops replaying, queued entries are kept
+     */
+    public synchronized void stop() {
+        if (networkCallback != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+        }
+    }
+
+    /**
+     * Adds a call to the end of the queue
+     *
+     * @param method the plugin method the call was made to
+     * @param options the options of the call
+     * @return the id of the entry
+     * @throws IOException if the entry couldn't be written to disk
+     */
+    public synchronized String add(String method, JSObject options) throws IOException {
+        JSObject entry = new JSObject();
+        entry.put("id", UUID.randomUUID().toString());
+        entry.put("method", method);
+        entry.put("options", options);
+        entry.put("queuedAt", System.currentTimeMillis());
+
+        FileOutputStream out = new FileOutputStream(journal, true);
+        try {
+            writeEntry(out, entry);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+
+        entries.add(entry);
+        return entry.getString("id");
+    }
+
+    /**
+     * Whether the active network is connected, and validated to reach the
+     * internet on Android 6 and later
+     */
+    public boolean isOnline() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            Network network = connectivityManager.getActiveNetwork();
+            NetworkCapabilities capabilities = network != null ? connectivityManager.getNetworkCapabilities(network) : null;
+            return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+        }
+        NetworkInfo info = connectivityManager.getActiveNetworkInfo();
+        return info != null && info.isConnected();
+    }
+
+    /**
+     * Whether a call that failed with the error can succeed later on a
+     * working network, as opposed to failing the same way again
+     */
+    public static boolean isNetworkError(Exception ex) {
+        if (!(ex instanceof IOException)) {
+            return false;
+        }
+        if (ex instanceof RequestHandle.CanceledException || ex instanceof CircuitBreaker.CircuitOpenException) {
+            return false;
+        }
+        if (ex instanceof InterruptedIOException) {
+            return ex instanceof SocketTimeoutException;
+        }
+        return !(
+            ex instanceof FileNotFoundException ||
+            ex instanceof MalformedURLException ||
+            ex instanceof ProtocolException ||
+            ex instanceof SSLException
+        );
+    }
+
+    /**
+     * Starts sending entries that aren't in flight, in order, as long as
+     * fewer than the maximum are in flight
+     */
+    private void replay() {
+        List<JSObject> pending = new ArrayList<>();
+        synchronized (this) {
+            if (sender == null) {
+                return;
+            }
+            for (JSObject entry : entries) {
+                if (inFlight.size() + pending.size() >= maxConcurrentReplays) {
+                    break;
+                }
+                if (!inFlight.contains(entry.getString("id"))) {
+                    pending.add(entry);
+                }
+            }
+            for (JSObject entry : pending) {
+                inFlight.add(entry.getString("id"));
+            }
+        }
+
+        for (final JSObject entry : pending) {
+            sender.send(
+                entry.getString("method"),
+                entry.getJSObject("options"),
+                new RequestCallback() {
+
+                    @Override
+                    public void onResponse(JSObject response) {
+                        onReplayed(entry, response, null);
+                    }
+
+                    @Override
+                    public void onError(Exception ex) {
+                        onReplayed(entry, null, ex);
+                    }
+                }
+            );
+        }
+    }
+
+    private void onReplayed(JSObject entry, JSObject response, Exception error) {
+        boolean offline = error != null && isNetworkError(error);
+        synchronized (this) {
+            inFlight.remove(entry.getString("id"));
+            if (offline) {
+                Log.d(TAG, "Replay failed, waiting for the next network", error);
+                return;
+            }
+            entries.remove(entry);
+            try {
+                rewrite();
+            } catch (IOException ex) {
+                Log.w(TAG, "Unable to update the offline queue", ex);
+            }
+        }
+
+        listener.onReplayed(entry, response, error);
+        replay();
+    }
+
+    private void load() {
+        entries.clear();
+        if (!journal.exists()) {
+            return;
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        entries.add(new JSObject(line));
+                    } catch (JSONException ex) {
+                        // A write cut short by the app being killed
+                        Log.w(TAG, "Skipping malformed offline queue entry", ex);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            Log.w(TAG, "Unable to read the offline queue", ex);
+        }
+    }
+
+    /**
+     * Replaces the journal with the current entries
+     */
+    private void rewrite() throws IOException {
+        File tmp = new File(journal.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            for (JSObject entry : entries) {
+                writeEntry(out, entry);
+            }
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(journal)) {
+            throw new IOException("Unable to replace " + journal);
+        }
+    }
+
+    private static void writeEntry(OutputStream out, JSObject entry) throws IOException {
+        out.write(entry.toString().getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+}
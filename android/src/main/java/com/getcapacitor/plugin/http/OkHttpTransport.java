@@ -0,0 +1,136 @@
+package com.getcapacitor.plugin.http;
+
+import android.net.Network;
+import java.io.IOException;
+import java.net.CookieHandler;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.JavaNetCookieJar;
+import okhttp3.OkHttpClient;
+import okhttp3.OkUrlFactory;
+
+/**
+ * OkHttp behind the HttpURLConnection API. Negotiates HTTP/2 where the
+ * server supports it, so that parallel requests to a host share a single
+ * connection and TLS handshake and headers are compressed with HPACK.
+ *
+ * Connections are kept in a pool owned by the transport. Requests bound to a
+ * network use a client derived from the same pool. The pool doesn't compare
+ * socket factories, their connections are kept apart by the client's own Dns.
+ */
+public class OkHttpTransport implements HttpTransport {
+    public static final String NAME = "okhttp";
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_DURATION = 5 * 60 * 1000;
+
+    private static final EventListener.Factory TIMINGS_LISTENER_FACTORY = new EventListener.Factory() {
+
+        @Override
+        public EventListener create(Call call) {
+            // Calls are created on the thread connecting, lookups and handshakes may happen on OkHttp's threads
+            final RequestTimings timings = TimingSSLSocketFactory.getCurrentTimings();
+            if (timings == null) {
+                return EventListener.NONE;
+            }
+            return new EventListener() {
+
+                @Override
+                public void dnsStart(Call call, String domainName) {
+                    timings.dnsStarted();
+                }
+
+                @Override
+                public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+                    timings.dnsEnded();
+                }
+
+                @Override
+                public void secureConnectStart(Call call) {
+                    timings.secureConnectStarted();
+                }
+
+                @Override
+                public void secureConnectEnd(Call call, Handshake handshake) {
+                    timings.secureConnectEnded();
+                }
+            };
+        }
+    };
+
+    private final OkHttpClient client;
+    private final OkUrlFactory urlFactory;
+
+    private Network boundNetwork;
+    private OkUrlFactory boundUrlFactory;
+
+    /**
+     * @param cookieHandler the cookie store shared with the platform transport
+     * @param cache the response cache, or null for none
+     * @param maxIdleConnections the number of idle connections kept in the pool
+     * @param keepAliveDuration how long in milliseconds an idle connection is kept
+     * @param maxRequests the number of requests run at once, also per host
+     */
+    public OkHttpTransport(CookieHandler cookieHandler, Cache cache, int maxIdleConnections, long keepAliveDuration, int maxRequests) {
+        // Requests are already limited by the plugin's dispatcher
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+
+        // Timeouts default to none, like the platform's HttpURLConnection
+        this.client =
+            new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .cookieJar(new JavaNetCookieJar(cookieHandler))
+                .cache(cache)
+                .eventListenerFactory(TIMINGS_LISTENER_FACTORY)
+                .connectTimeout(0, TimeUnit.MILLISECONDS)
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .writeTimeout(0, TimeUnit.MILLISECONDS)
+                .build();
+        this.urlFactory = new OkUrlFactory(client);
+    }
+
+    @Override
+    public HttpURLConnection openConnection(URL url, Network network) throws IOException {
+        return network != null ? getUrlFactory(network).open(url) : urlFactory.open(url);
+    }
+
+    @Override
+    public void evictConnections() {
+        client.connectionPool().evictAll();
+    }
+
+    private synchronized OkUrlFactory getUrlFactory(final Network network) {
+        if (!network.equals(boundNetwork)) {
+            OkHttpClient bound = client
+                .newBuilder()
+                .socketFactory(network.getSocketFactory())
+                .dns(
+                    new Dns() {
+
+                        @Override
+                        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+                            return Arrays.asList(network.getAllByName(hostname));
+                        }
+                    }
+                )
+                .build();
+            boundNetwork = network;
+            boundUrlFactory = new OkUrlFactory(bound);
+        }
+        return boundUrlFactory;
+    }
+}
@@ -0,0 +1,12 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Receives the outcome of a request that runs asynchronously
+ */
+public interface RequestCallback {
+    void onResponse(JSObject response);
+
+    void onError(Exception ex);
+}
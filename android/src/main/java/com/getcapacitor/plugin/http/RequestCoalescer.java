@@ -0,0 +1,63 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets identical requests that are in flight at the same time share a single
+ * network request. The first caller for a key runs the request, callers that
+ * arrive before it completes receive the same response.
+ */
+public class RequestCoalescer {
+    private final Map<String, List<RequestCallback>> inFlight = new HashMap<>();
+
+    /**
+     * Registers a caller for a request.
+     *
+     * @param key identifies identical requests
+     * @param callback receives the shared response
+     * @return a callback the caller must complete by running the request, or
+     * null if an identical request is already in flight
+     */
+    public RequestCallback join(final String key, RequestCallback callback) {
+        synchronized (this) {
+            List<RequestCallback> waiting = inFlight.get(key);
+            if (waiting != null) {
+                waiting.add(callback);
+                return null;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(key, waiting);
+        }
+
+        return new RequestCallback() {
+
+            @Override
+            public void onResponse(JSObject response) {
+                for (RequestCallback waiting : finish(key)) {
+                    waiting.onResponse(response);
+                }
+            }
+
+            @Override
+            public void onError(Exception ex) {
+                for (RequestCallback waiting : finish(key)) {
+                    waiting.onError(ex);
+                }
+            }
+        };
+    }
+
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private synchronized List<RequestCallback> finish(String key) {
+        List<RequestCallback> waiting = inFlight.remove(key);
+        return waiting != null ? waiting : new ArrayList<RequestCallback>();
+    }
+}
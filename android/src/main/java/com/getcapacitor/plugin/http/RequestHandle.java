@@ -0,0 +1,182 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Tracks the worker thread and the connections of a running call so that it
+ * can be canceled from another thread, either by the caller or when its
+ * deadline passes.
+ *
+ * Canceling disconnects every connection the call has opened, which unblocks
+ * pending reads and writes, and interrupts the worker to end any wait.
+ */
+public class RequestHandle {
+    private final String requestId;
+    private final Set<HttpURLConnection> connections = new HashSet<>();
+    private final RequestTimings timings = new RequestTimings();
+    private Thread worker;
+    private CanceledException cancellation;
+    private ScheduledFuture<?> deadline;
+    private BandwidthLimiter bandwidthLimiter;
+
+    public RequestHandle(String requestId) {
+        this.requestId = requestId;
+    }
+
+    /**
+     * The id the caller can cancel the call with, or null
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public RequestTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * The limiter of a download or upload, or null
+     */
+    public synchronized BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    public synchronized void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    synchronized void setDeadline(ScheduledFuture<?> deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Marks the current thread as the worker of the call
+     *
+     * @throws CanceledException if the call was canceled while it was queued
+     */
+    public synchronized void begin() throws CanceledException {
+        throwIfCanceled();
+        worker = Thread.currentThread();
+        timings.started();
+    }
+
+    /**
+     * Called by the worker when the call is done, the worker won't be interrupted afterwards
+     */
+    public synchronized void end() {
+        if (worker == Thread.currentThread()) {
+            // Don't let a late interrupt leak into the next task of the pooled thread
+            Thread.interrupted();
+        }
+        worker = null;
+        connections.clear();
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+    }
+
+    /**
+     * Registers a connection to disconnect when the call is canceled
+     *
+     * @param conn the connection
+     * @return the same connection
+     * @throws CanceledException if the call was already canceled, the connection is disconnected
+     */
+    public HttpURLConnection track(HttpURLConnection conn) throws CanceledException {
+        CanceledException canceled;
+        synchronized (this) {
+            if (cancellation == null) {
+                connections.add(conn);
+                return conn;
+            }
+            canceled = cancellation;
+        }
+        conn.disconnect();
+        throw canceled;
+    }
+
+    /**
+     * Cancels the call
+     *
+     * @param timedOut whether the deadline of the call passed
+     */
+    public void cancel(boolean timedOut) {
+        List<HttpURLConnection> open;
+        synchronized (this) {
+            if (cancellation != null) {
+                return;
+            }
+            cancellation = new CanceledException(timedOut);
+            open = new ArrayList<>(connections);
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        for (HttpURLConnection conn : open) {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Disconnects the connections opened so far, for an attempt that failed
+     * before the call is retried or given up
+     */
+    public void disconnectAll() {
+        List<HttpURLConnection> open;
+        synchronized (this) {
+            open = new ArrayList<>(connections);
+            connections.clear();
+        }
+        for (HttpURLConnection conn : open) {
+            conn.disconnect();
+        }
+    }
+
+    public synchronized boolean isCanceled() {
+        return cancellation != null;
+    }
+
+    public synchronized void throwIfCanceled() throws CanceledException {
+        if (cancellation != null) {
+            throw cancellation;
+        }
+    }
+
+    /**
+     * Errors raised by a canceled call are mostly side effects of closed
+     * connections, report the cancellation instead
+     *
+     * @param ex the error the call failed with
+     * @return the cancellation if the call was canceled, the error otherwise
+     */
+    public synchronized Exception translate(Exception ex) {
+        return cancellation != null ? cancellation : ex;
+    }
+
+    public static class CanceledException extends InterruptedIOException {
+        private static final long serialVersionUID = 1L;
+        private final boolean timedOut;
+
+        CanceledException(boolean timedOut) {
+            super(timedOut ? "Request timed out" : "Request canceled");
+            this.timedOut = timedOut;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * The error code reported to the WebView
+         */
+        public String getCode() {
+            return timedOut ? "TIMEOUT" : "CANCELED";
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.getcapacitor.plugin.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the handles of running calls by their request id, and cancels calls
+ * whose deadline has passed.
+ */
+public class RequestRegistry {
+    private final Map<String, RequestHandle> requests = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorHttp-Deadline");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+
+    /**
+     * Creates the handle of a new call. {@link #finish} must be called once
+     * the call is done.
+     *
+     * @param requestId the id the caller may cancel the call with, or null
+     * @param timeout the time in milliseconds the whole call may take, or null for no deadline
+     * @return the handle
+     * @throws IllegalArgumentException if another call with the same id is running
+     */
+    public RequestHandle register(String requestId, Integer timeout) {
+        final RequestHandle handle = new RequestHandle(requestId);
+        if (requestId != null) {
+            synchronized (requests) {
+                if (requests.containsKey(requestId)) {
+                    throw new IllegalArgumentException("A request with id " + requestId + " is already running");
+                }
+                requests.put(requestId, handle);
+            }
+        }
+        if (timeout != null) {
+            handle.setDeadline(
+                scheduler.schedule(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            handle.cancel(true);
+                        }
+                    },
+                    timeout,
+                    TimeUnit.MILLISECONDS
+                )
+            );
+        }
+        return handle;
+    }
+
+    /**
+     * @param requestId the id of the call
+     * @return the handle of the running call with the id, or null
+     */
+    public RequestHandle get(String requestId) {
+        synchronized (requests) {
+            return requests.get(requestId);
+        }
+    }
+
+    /**
+     * @param requestId the id of the call
+     * @return whether a running call with the id was found
+     */
+    public boolean cancel(String requestId) {
+        RequestHandle handle;
+        synchronized (requests) {
+            handle = requests.get(requestId);
+        }
+        if (handle == null) {
+            return false;
+        }
+        handle.cancel(false);
+        return true;
+    }
+
+    /**
+     * Ends a call, must be called on its worker thread if it has one
+     */
+    public void finish(RequestHandle handle) {
+        handle.end();
+        if (handle.getRequestId() != null) {
+            synchronized (requests) {
+                if (requests.get(handle.getRequestId()) == handle) {
+                    requests.remove(handle.getRequestId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * Records when the phases of a call start and end.
+ *
+ * Only the final attempt of a retried call is kept. Phases that didn't
+ * happen on it, such as DNS and TLS on a reused connection, take 0 ms.
+ * DNS is only measured on the okhttp transport, on the platform transport
+ * the lookup is part of the connect time.
+ */
+public class RequestTimings {
+    private final long queuedAt = System.nanoTime();
+    private long startedAt;
+    private long attemptStart;
+    private long dnsStart;
+    private long dnsEnd;
+    private long connectStart;
+    private long connectEnd;
+    private long secureConnectStart;
+    private long secureConnectEnd;
+    private long responseStart;
+    private long responseEnd;
+    private long bytesSent;
+    private long bytesReceived;
+
+    /**
+     * The call left the queue and started running
+     */
+    public synchronized void started() {
+        startedAt = System.nanoTime();
+    }
+
+    /**
+     * A new attempt starts, the phases of the previous attempt are dropped
+     */
+    public synchronized void attemptStarted() {
+        attemptStart = System.nanoTime();
+        dnsStart = dnsEnd = 0;
+        connectStart = connectEnd = 0;
+        secureConnectStart = secureConnectEnd = 0;
+        responseStart = responseEnd = 0;
+        bytesSent = bytesReceived = 0;
+    }
+
+    public synchronized void dnsStarted() {
+        dnsStart = System.nanoTime();
+    }
+
+    public synchronized void dnsEnded() {
+        dnsEnd = System.nanoTime();
+    }
+
+    public synchronized void connectStarted() {
+        connectStart = System.nanoTime();
+    }
+
+    public synchronized void connectEnded() {
+        connectEnd = System.nanoTime();
+    }
+
+    public synchronized void secureConnectStarted() {
+        secureConnectStart = System.nanoTime();
+    }
+
+    public synchronized void secureConnectEnded() {
+        secureConnectEnd = System.nanoTime();
+    }
+
+    /**
+     * The response headers arrived
+     */
+    public synchronized void responseStarted() {
+        responseStart = System.nanoTime();
+    }
+
+    /**
+     * The response body was read completely
+     */
+    public synchronized void responseEnded(long bytesReceived) {
+        this.responseEnd = System.nanoTime();
+        this.bytesReceived = bytesReceived;
+    }
+
+    public synchronized void addBytesSent(long count) {
+        bytesSent += count;
+    }
+
+    /**
+     * Whether the final attempt got a response from the server
+     */
+    public synchronized boolean hasResponse() {
+        return responseStart != 0;
+    }
+
+    public synchronized double getQueue() {
+        return millis(queuedAt, startedAt);
+    }
+
+    public synchronized double getDns() {
+        return millis(dnsStart, dnsEnd);
+    }
+
+    /**
+     * Time to establish the connection, including TLS
+     */
+    public synchronized double getConnect() {
+        return millis(connectStart, connectEnd);
+    }
+
+    public synchronized double getTls() {
+        return millis(secureConnectStart, secureConnectEnd);
+    }
+
+    /**
+     * Time from the connection being ready, or the attempt starting if it
+     * wasn't measured, to the response headers, including sending the request
+     */
+    public synchronized double getTtfb() {
+        return millis(connectEnd != 0 ? connectEnd : attemptStart, responseStart);
+    }
+
+    public synchronized double getTransfer() {
+        return millis(responseStart, responseEnd);
+    }
+
+    /**
+     * Time from the call being queued to the response body being read
+     */
+    public synchronized double getTotal() {
+        return millis(queuedAt, responseEnd != 0 ? responseEnd : System.nanoTime());
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    private static double millis(long start, long end) {
+        if (start == 0 || end == 0 || end < start) {
+            return 0;
+        }
+        return Math.round((end - start) / 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,308 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Uploads a file with the tus resumable upload protocol (https://tus.io).
+ *
+ * The file is sent in fixed-size chunks. When a chunk fails, the offset the
+ * server actually received is queried and the upload continues from there.
+ * Upload URLs are kept in an {@link UploadUrlStore} so that an upload of the
+ * same file started later, even after an app restart, resumes as well.
+ */
+public class ResumableUploader {
+    public static final String TUS_VERSION = "1.0.0";
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 30000;
+
+    /**
+     * Opens a connection with the caller's headers and timeouts applied. The
+     * uploader adds the protocol headers itself.
+     */
+    public interface ConnectionFactory {
+        HttpURLConnection openConnection(URL url, String method) throws Exception;
+    }
+
+    /**
+     * Remembers the upload URL of unfinished uploads
+     */
+    public interface UploadUrlStore {
+        String get(String fingerprint);
+
+        void put(String fingerprint, String uploadUrl);
+
+        void remove(String fingerprint);
+    }
+
+    private final URL endpoint;
+    private final File file;
+    private final int chunkSize;
+    private final ConnectionFactory connectionFactory;
+
+    private UploadUrlStore uploadUrlStore;
+    private ProgressEmitter progressEmitter;
+    private BandwidthLimiter bandwidthLimiter;
+    private String metadata;
+    private String uploadUrl;
+    private int responseCode;
+    private long reportedBytes;
+
+    public ResumableUploader(URL endpoint, File file, int chunkSize, ConnectionFactory connectionFactory) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize < 1: " + chunkSize);
+        }
+        this.endpoint = endpoint;
+        this.file = file;
+        this.chunkSize = chunkSize;
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setUploadUrlStore(UploadUrlStore uploadUrlStore) {
+        this.uploadUrlStore = uploadUrlStore;
+    }
+
+    public void setProgressEmitter(ProgressEmitter progressEmitter) {
+        this.progressEmitter = progressEmitter;
+    }
+
+    public void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    /**
+     * Sets the Upload-Metadata header sent when the upload is created
+     *
+     * @param metadata comma separated key and base64 value pairs
+     */
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+
+    /**
+     * Resumes a known upload instead of looking one up or creating a new one
+     *
+     * @param uploadUrl the URL returned by a previous upload
+     */
+    public void setUploadUrl(String uploadUrl) {
+        this.uploadUrl = uploadUrl;
+    }
+
+    /**
+     * The status code of the last response received from the server
+     */
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * Uploads the file, resuming a previous upload of it if possible
+     *
+     * @return the upload URL
+     * @throws IOException
+     */
+    public String upload() throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getAbsolutePath());
+        }
+        long length = file.length();
+        String fingerprint = endpoint + "|" + file.getAbsolutePath() + "|" + length + "|" + file.lastModified();
+
+        if (uploadUrl == null && uploadUrlStore != null) {
+            uploadUrl = uploadUrlStore.get(fingerprint);
+        }
+
+        long offset = -1;
+        if (uploadUrl != null) {
+            try {
+                offset = queryOffset();
+            } catch (UploadExpiredException ex) {
+                uploadUrl = null;
+            }
+        }
+        if (uploadUrl == null) {
+            uploadUrl = create(length);
+            offset = 0;
+            if (uploadUrlStore != null) {
+                uploadUrlStore.put(fingerprint, uploadUrl);
+            }
+        }
+
+        if (progressEmitter != null) {
+            progressEmitter.setContentLength(length);
+        }
+        reportProgress(offset);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int failures = 0;
+            while (true) {
+                try {
+                    if (offset < 0) {
+                        offset = queryOffset();
+                        // Bytes of a failed chunk the server didn't keep are reported again
+                        reportProgress(offset);
+                    }
+                    if (offset >= length) {
+                        break;
+                    }
+                    offset = sendChunk(raf, buffer, offset, Math.min(chunkSize, length - offset));
+                    failures = 0;
+                } catch (UploadExpiredException ex) {
+                    throw ex;
+                } catch (RequestHandle.CanceledException ex) {
+                    throw ex;
+                } catch (IOException ex) {
+                    if (++failures >= MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                    sleep(Math.min(INITIAL_RETRY_DELAY_MS << (failures - 1), MAX_RETRY_DELAY_MS));
+                    offset = -1;
+                }
+            }
+        } finally {
+            raf.close();
+        }
+
+        if (uploadUrlStore != null) {
+            uploadUrlStore.remove(fingerprint);
+        }
+        return uploadUrl;
+    }
+
+    private String create(long length) throws IOException {
+        HttpURLConnection conn = open(endpoint, "POST");
+        try {
+            conn.setRequestProperty("Upload-Length", Long.toString(length));
+            if (metadata != null) {
+                conn.setRequestProperty("Upload-Metadata", metadata);
+            }
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(0);
+            conn.getOutputStream().close();
+
+            responseCode = conn.getResponseCode();
+            String location = conn.getHeaderField("Location");
+            if (responseCode != HttpURLConnection.HTTP_CREATED || location == null) {
+                throw new IOException("Unable to create upload, server responded with " + responseCode);
+            }
+            return new URL(endpoint, location).toString();
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private long queryOffset() throws IOException {
+        HttpURLConnection conn = open(new URL(uploadUrl), "HEAD");
+        try {
+            responseCode = conn.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE) {
+                throw new UploadExpiredException();
+            }
+            return parseOffset(conn);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private long sendChunk(RandomAccessFile raf, byte[] buffer, long offset, long length) throws IOException {
+        HttpURLConnection conn = open(new URL(uploadUrl), "PATCH");
+        try {
+            conn.setRequestProperty("Upload-Offset", Long.toString(offset));
+            conn.setRequestProperty("Content-Type", "application/offset+octet-stream");
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(length);
+
+            raf.seek(offset);
+            OutputStream out = conn.getOutputStream();
+            try {
+                long remaining = length;
+                while (remaining > 0) {
+                    int len = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (len == -1) {
+                        throw new IOException("File is shorter than when the upload started");
+                    }
+                    if (bandwidthLimiter != null) {
+                        bandwidthLimiter.acquire(len);
+                    }
+                    out.write(buffer, 0, len);
+                    remaining -= len;
+                    reportProgress(reportedBytes + len);
+                }
+            } finally {
+                out.close();
+            }
+
+            responseCode = conn.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE) {
+                throw new UploadExpiredException();
+            }
+            if (responseCode != HttpURLConnection.HTTP_NO_CONTENT) {
+                throw new IOException("Unable to upload chunk, server responded with " + responseCode);
+            }
+            return parseOffset(conn);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private void reportProgress(long bytes) {
+        if (progressEmitter != null) {
+            progressEmitter.add(bytes - reportedBytes);
+        }
+        reportedBytes = bytes;
+    }
+
+    private HttpURLConnection open(URL url, String method) throws IOException {
+        HttpURLConnection conn;
+        try {
+            conn = connectionFactory.openConnection(url, method);
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+        conn.setRequestProperty("Tus-Resumable", TUS_VERSION);
+        return conn;
+    }
+
+    private static long parseOffset(HttpURLConnection conn) throws IOException {
+        String value = conn.getHeaderField("Upload-Offset");
+        if (value == null) {
+            throw new IOException("Missing Upload-Offset header");
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid Upload-Offset header: " + value);
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Upload interrupted");
+        }
+    }
+
+    private static class UploadExpiredException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        UploadExpiredException() {
+            super("The upload no longer exists on the server");
+        }
+    }
+}
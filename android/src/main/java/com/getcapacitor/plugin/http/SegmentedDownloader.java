@@ -0,0 +1,525 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Downloads a file as several HTTP Range segments fetched in parallel.
+ *
+ * The data is written to a ".part" file next to the target and the progress
+ * of every segment is saved to a ".part.meta" file, so a later download of the
+ * same URL picks up where the previous one stopped, even after an app restart.
+ */
+public class SegmentedDownloader {
+    public static final String PART_SUFFIX = ".part";
+    public static final String META_SUFFIX = ".part.meta";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long CHECKPOINT_INTERVAL_MS = 1000;
+    private static final int MAX_SEGMENT_ATTEMPTS = 3;
+
+    /**
+     * Opens a new connection to the download URL, with the caller's headers
+     * and timeouts applied. The downloader adds the Range header itself.
+     */
+    public interface ConnectionFactory {
+        HttpURLConnection openConnection() throws Exception;
+    }
+
+    private final String url;
+    private final File file;
+    private final File partFile;
+    private final File metaFile;
+    private final int segmentCount;
+    private final ConnectionFactory connectionFactory;
+    private final AtomicBoolean aborted = new AtomicBoolean();
+
+    private ProgressEmitter progressEmitter;
+    private ChecksumVerifier checksumVerifier;
+    private BandwidthLimiter bandwidthLimiter;
+
+    private List<Segment> segments;
+    private String validator;
+    private long totalLength;
+    private FileChannel channel;
+    private long lastCheckpoint;
+
+    /**
+     * @param url the download URL
+     * @param file the final path of the file
+     * @param segmentCount the number of segments fetched at once
+     * @param connectionFactory opens the connection of each segment
+     */
+    public SegmentedDownloader(String url, File file, int segmentCount, ConnectionFactory connectionFactory) {
+        this.url = url;
+        this.file = file;
+        this.partFile = new File(file.getPath() + PART_SUFFIX);
+        this.metaFile = new File(file.getPath() + META_SUFFIX);
+        this.segmentCount = segmentCount;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Reports the bytes written by all segments, including those of a resumed download
+     *
+     * @param progressEmitter the emitter, or null for no progress reporting
+     */
+    public void setProgressEmitter(ProgressEmitter progressEmitter) {
+        this.progressEmitter = progressEmitter;
+    }
+
+    /**
+     * Verifies the file before it is moved to its final path. Segments
+     * arrive out of order, so the file is read once it is complete.
+     *
+     * @param checksumVerifier the verifier, or null for no verification
+     */
+    public void setChecksumVerifier(ChecksumVerifier checksumVerifier) {
+        this.checksumVerifier = checksumVerifier;
+    }
+
+    /**
+     * Limits the combined throughput of all segments
+     *
+     * @param bandwidthLimiter the limiter, or null for no limit
+     */
+    public void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    /**
+     * Asks for the whole body as a range so the response tells whether the
+     * server supports range requests. Does nothing if the caller already set
+     * a Range header.
+     *
+     * @param conn a connection that hasn't been connected yet
+     * @return true if the range request was added
+     */
+    public static boolean requestRange(HttpURLConnection conn) {
+        if (conn.getRequestProperty("Range") != null) {
+            return false;
+        }
+        conn.setRequestProperty("Range", "bytes=0-");
+        if (conn.getRequestProperty("Accept-Encoding") == null) {
+            // Ranges of a transparently compressed body can't be stitched together
+            conn.setRequestProperty("Accept-Encoding", "identity");
+        }
+        return true;
+    }
+
+    /**
+     * Reads the total size of the resource from a partial response to {@link #requestRange}
+     *
+     * @param conn the probe connection
+     * @return the total size, or -1 if the server didn't answer with a range starting at 0
+     * @throws IOException
+     */
+    public static long getRangeLength(HttpURLConnection conn) throws IOException {
+        if (conn.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            return -1;
+        }
+        String contentRange = conn.getHeaderField("Content-Range");
+        if (contentRange == null || !contentRange.startsWith("bytes 0-")) {
+            return -1;
+        }
+        int slash = contentRange.indexOf('/');
+        if (slash == -1) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Downloads the file and moves it to its final path.
+     *
+     * @param probe the connection that answered {@link #requestRange}, reused for the first segment
+     * @param totalLength the total size from {@link #getRangeLength}
+     * @throws IOException
+     */
+    public void download(HttpURLConnection probe, long totalLength) throws IOException {
+        this.totalLength = totalLength;
+        this.validator = getValidator(probe);
+
+        segments = loadSegments();
+        boolean resumed = segments != null;
+        if (!resumed) {
+            segments = planSegments();
+        } else {
+            probe.disconnect();
+            probe = null;
+        }
+
+        boolean corrupt = false;
+        boolean complete = false;
+        RandomAccessFile raf = new RandomAccessFile(partFile, "rw");
+        try {
+            if (!resumed) {
+                raf.setLength(totalLength);
+            }
+            channel = raf.getChannel();
+            fetchSegments(probe);
+            channel.force(true);
+            if (checksumVerifier != null) {
+                verify();
+            }
+            complete = true;
+        } catch (RemoteFileChangedException | ChecksumVerifier.MismatchException ex) {
+            corrupt = true;
+            throw ex;
+        } finally {
+            raf.close();
+            // Without a validator the data can't be resumed safely, so there's no use keeping it
+            if (corrupt || (!complete && validator == null)) {
+                discard();
+            }
+        }
+
+        if (!partFile.renameTo(file)) {
+            throw new IOException("Unable to move download to " + file.getAbsolutePath());
+        }
+        metaFile.delete();
+
+        if (progressEmitter != null) {
+            progressEmitter.complete();
+        }
+    }
+
+    private void verify() throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        while (position < totalLength) {
+            byteBuffer.clear();
+            int len = channel.read(byteBuffer, position);
+            if (len == -1) {
+                break;
+            }
+            checksumVerifier.update(byteBuffer.array(), 0, len);
+            position += len;
+        }
+        checksumVerifier.verify();
+    }
+
+    private void fetchSegments(HttpURLConnection probe) throws IOException {
+        List<Segment> pending = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (!segment.isComplete()) {
+                pending.add(segment);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        if (progressEmitter != null) {
+            long downloaded = 0;
+            for (Segment segment : segments) {
+                downloaded += segment.downloaded;
+            }
+            progressEmitter.add(downloaded);
+        }
+
+        // A resumed download may have more segments left than it may fetch at once
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(pending.size(), segmentCount));
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (final Segment segment : pending) {
+                final HttpURLConnection conn = segment.start == 0 && segment.downloaded == 0 ? probe : null;
+                futures.add(
+                    executor.submit(
+                        new Callable<Void>() {
+
+                            @Override
+                            public Void call() throws Exception {
+                                fetch(segment, conn);
+                                return null;
+                            }
+                        }
+                    )
+                );
+            }
+
+            IOException failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+                        abort();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    if (failure == null) {
+                        failure = new IOException("Download interrupted");
+                        abort();
+                    }
+                }
+            }
+
+            if (failure != null) {
+                checkpoint(true);
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void abort() {
+        aborted.set(true);
+        for (Segment segment : segments) {
+            HttpURLConnection conn = segment.connection;
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    private void fetch(Segment segment, HttpURLConnection conn) throws Exception {
+        for (int attempt = 1; !segment.isComplete(); attempt++) {
+            if (aborted.get()) {
+                throw new IOException("Download aborted");
+            }
+            try {
+                if (conn == null) {
+                    conn = openSegment(segment);
+                }
+                segment.connection = conn;
+                copy(conn.getInputStream(), segment);
+            } catch (RemoteFileChangedException ex) {
+                throw ex;
+            } catch (IOException ex) {
+                if (attempt >= MAX_SEGMENT_ATTEMPTS || aborted.get()) {
+                    throw ex;
+                }
+                continue;
+            } finally {
+                segment.connection = null;
+                if (conn != null) {
+                    conn.disconnect();
+                    conn = null;
+                }
+            }
+            if (!segment.isComplete() && attempt >= MAX_SEGMENT_ATTEMPTS) {
+                throw new IOException("Connection closed before the download completed");
+            }
+        }
+    }
+
+    private HttpURLConnection openSegment(Segment segment) throws Exception {
+        HttpURLConnection conn = connectionFactory.openConnection();
+        conn.setRequestProperty("Range", "bytes=" + segment.position() + "-" + segment.end);
+        if (validator != null) {
+            conn.setRequestProperty("If-Range", validator);
+        }
+        if (conn.getRequestProperty("Accept-Encoding") == null) {
+            conn.setRequestProperty("Accept-Encoding", "identity");
+        }
+        int status = conn.getResponseCode();
+        if (status != HttpURLConnection.HTTP_PARTIAL) {
+            conn.disconnect();
+            if (status == HttpURLConnection.HTTP_OK) {
+                throw new RemoteFileChangedException();
+            }
+            throw new IOException("Unexpected status " + status + " for range request");
+        }
+        return conn;
+    }
+
+    private void copy(InputStream in, Segment segment) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        try {
+            while (!segment.isComplete() && !aborted.get()) {
+                int len = in.read(buffer, 0, (int) Math.min(buffer.length, segment.remaining()));
+                if (len == -1) {
+                    break;
+                }
+                if (bandwidthLimiter != null) {
+                    bandwidthLimiter.acquire(len);
+                }
+                byteBuffer.clear().limit(len);
+                long position = segment.position();
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+                segment.downloaded += len;
+                if (progressEmitter != null) {
+                    progressEmitter.add(len);
+                }
+                checkpoint(false);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Saves the progress of every segment. Data is synced to disk before the
+     * offsets are written, so the saved offsets never get ahead of the file.
+     */
+    private synchronized void checkpoint(boolean force) throws IOException {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastCheckpoint < CHECKPOINT_INTERVAL_MS) {
+            return;
+        }
+        lastCheckpoint = now;
+
+        if (validator == null) {
+            // Without a validator a resumed download could mix two versions of the file
+            return;
+        }
+
+        String meta;
+        try {
+            JSONArray jsonSegments = new JSONArray();
+            for (Segment segment : segments) {
+                JSONObject jsonSegment = new JSONObject();
+                jsonSegment.put("start", segment.start);
+                jsonSegment.put("end", segment.end);
+                jsonSegment.put("downloaded", segment.downloaded);
+                jsonSegments.put(jsonSegment);
+            }
+            JSONObject json = new JSONObject();
+            json.put("url", url);
+            json.put("length", totalLength);
+            json.put("validator", validator);
+            json.put("segments", jsonSegments);
+            meta = json.toString();
+        } catch (JSONException ex) {
+            throw new IOException(ex);
+        }
+
+        channel.force(false);
+
+        File tmp = new File(metaFile.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp, false);
+        try {
+            Writer writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
+            writer.write(meta);
+            writer.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        if (!tmp.renameTo(metaFile)) {
+            tmp.delete();
+        }
+    }
+
+    private List<Segment> loadSegments() {
+        if (validator == null || !metaFile.exists() || partFile.length() != totalLength) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(readFile(metaFile));
+            if (
+                !url.equals(json.optString("url")) ||
+                json.optLong("length", -1) != totalLength ||
+                !validator.equals(json.optString("validator"))
+            ) {
+                return null;
+            }
+            JSONArray jsonSegments = json.getJSONArray("segments");
+            List<Segment> result = new ArrayList<>();
+            for (int i = 0; i < jsonSegments.length(); i++) {
+                JSONObject jsonSegment = jsonSegments.getJSONObject(i);
+                Segment segment = new Segment(jsonSegment.getLong("start"), jsonSegment.getLong("end"));
+                segment.downloaded = jsonSegment.getLong("downloaded");
+                result.add(segment);
+            }
+            return result;
+        } catch (IOException | JSONException ex) {
+            return null;
+        }
+    }
+
+    private List<Segment> planSegments() {
+        List<Segment> result = new ArrayList<>();
+        long size = (totalLength + segmentCount - 1) / segmentCount;
+        for (long start = 0; start < totalLength; start += size) {
+            result.add(new Segment(start, Math.min(start + size, totalLength) - 1));
+        }
+        return result;
+    }
+
+    private void discard() {
+        partFile.delete();
+        metaFile.delete();
+    }
+
+    private static String getValidator(HttpURLConnection conn) {
+        String etag = conn.getHeaderField("ETag");
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return conn.getHeaderField("Last-Modified");
+    }
+
+    private static String readFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static class Segment {
+        final long start;
+        final long end;
+        volatile long downloaded;
+        volatile HttpURLConnection connection;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long position() {
+            return start + downloaded;
+        }
+
+        long remaining() {
+            return end - position() + 1;
+        }
+
+        boolean isComplete() {
+            return remaining() <= 0;
+        }
+    }
+
+    private static class RemoteFileChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RemoteFileChangedException() {
+            super("The file changed on the server while it was being downloaded");
+        }
+    }
+}
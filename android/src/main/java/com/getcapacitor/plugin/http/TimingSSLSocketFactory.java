@@ -0,0 +1,123 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Measures TLS handshakes of the calls running on the current thread.
+ *
+ * The connection pool is keyed by socket factory, so there is a single
+ * wrapper per wrapped factory and connections stay reusable. A call that
+ * reuses a pooled connection records no handshake. Wrappers are held weakly,
+ * they reference the factory they wrap and would otherwise keep it alive.
+ */
+public class TimingSSLSocketFactory extends SSLSocketFactory {
+    private static final ThreadLocal<RequestTimings> CURRENT_TIMINGS = new ThreadLocal<>();
+    private static final Map<SSLSocketFactory, WeakReference<TimingSSLSocketFactory>> WRAPPERS = new WeakHashMap<>();
+
+    private final SSLSocketFactory delegate;
+
+    private TimingSSLSocketFactory(SSLSocketFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param factory the factory to measure
+     * @return the wrapper of the factory
+     */
+    public static synchronized SSLSocketFactory wrap(SSLSocketFactory factory) {
+        if (factory instanceof TimingSSLSocketFactory) {
+            return factory;
+        }
+        WeakReference<TimingSSLSocketFactory> ref = WRAPPERS.get(factory);
+        TimingSSLSocketFactory wrapper = ref != null ? ref.get() : null;
+        if (wrapper == null) {
+            wrapper = new TimingSSLSocketFactory(factory);
+            WRAPPERS.put(factory, new WeakReference<>(wrapper));
+        }
+        return wrapper;
+    }
+
+    /**
+     * Sets the timings handshakes on the current thread are recorded in
+     *
+     * @param timings the timings, or null to stop recording
+     */
+    public static void setCurrentTimings(RequestTimings timings) {
+        if (timings != null) {
+            CURRENT_TIMINGS.set(timings);
+        } else {
+            CURRENT_TIMINGS.remove();
+        }
+    }
+
+    /**
+     * @return the timings of the call connecting on the current thread, or null
+     */
+    static RequestTimings getCurrentTimings() {
+        return CURRENT_TIMINGS.get();
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+        return measure(delegate.createSocket(socket, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return measure(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return measure(delegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return measure(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return measure(delegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    private static Socket measure(Socket socket) {
+        final RequestTimings timings = CURRENT_TIMINGS.get();
+        if (timings == null || !(socket instanceof SSLSocket)) {
+            return socket;
+        }
+        // The handshake starts right after the socket is layered over the connected TCP socket
+        timings.secureConnectStarted();
+        final SSLSocket sslSocket = (SSLSocket) socket;
+        sslSocket.addHandshakeCompletedListener(
+            new HandshakeCompletedListener() {
+                @Override
+                public void handshakeCompleted(HandshakeCompletedEvent event) {
+                    timings.secureConnectEnded();
+                    sslSocket.removeHandshakeCompletedListener(this);
+                }
+            }
+        );
+        return socket;
+    }
+}
@@ -0,0 +1,32 @@
+package com.getcapacitor.plugin.http;
+
+import android.net.Network;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import javax.net.ssl.HttpsURLConnection;
+
+/**
+ * The platform's HttpURLConnection. Uses HTTP/1.1 and the connection pool
+ * shared by the whole app.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+    public static final String NAME = "platform";
+
+    @Override
+    public HttpURLConnection openConnection(URL url, Network network) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) (network != null ? network.openConnection(url) : url.openConnection());
+
+        if (conn instanceof HttpsURLConnection) {
+            HttpsURLConnection https = (HttpsURLConnection) conn;
+            https.setSSLSocketFactory(TimingSSLSocketFactory.wrap(https.getSSLSocketFactory()));
+        }
+
+        return conn;
+    }
+
+    @Override
+    public void evictConnections() {
+        // The pool belongs to the platform
+    }
+}
@@ -7,27 +7,150 @@ import java.net.CookiePolicy;
 import java.net.CookieStore;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares cookies between the WebView and native requests.
+ *
+ * Cookie headers looked up for a URL are cached for a short time, because
+ * every outgoing request asks for them. Cookies written through this class
+ * are flushed to disk in the background, in one batch after a short delay,
+ * instead of once per cookie on the request thread.
+ */
 public class WebkitCookieManagerProxy extends CookieManager {
+    private static final long CACHE_TTL_MS = 1000;
+    private static final int MAX_CACHE_ENTRIES = 64;
+    private static final long FLUSH_DELAY_MS = 500;
+
     private android.webkit.CookieManager webkitCookieManager;
 
+    private final Map<String, CachedCookie> cookieCache = new LinkedHashMap<String, CachedCookie>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedCookie> eldest) {
+            return size() > MAX_CACHE_ENTRIES;
+        }
+    };
+    // Changed by every invalidation, a lookup that overlapped one isn't cached
+    private long cacheGeneration;
+
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorHttp-CookieFlush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+    private ScheduledFuture<?> pendingFlush;
+
     public String getCookie(String url) {
-        return this.webkitCookieManager.getCookie(url);
+        String key = getCacheKey(url);
+        long now = System.currentTimeMillis();
+        long generation;
+        synchronized (cookieCache) {
+            CachedCookie cached = cookieCache.get(key);
+            if (cached != null && cached.expiresAt > now) {
+                return cached.value;
+            }
+            generation = cacheGeneration;
+        }
+
+        String value = this.webkitCookieManager.getCookie(url);
+        synchronized (cookieCache) {
+            if (generation == cacheGeneration) {
+                cookieCache.put(key, new CachedCookie(value, now + CACHE_TTL_MS));
+            }
+        }
+        return value;
     }
 
     public void setCookie(String url, String value) {
         this.webkitCookieManager.setCookie(url, value);
-        this.webkitCookieManager.flush();
+        invalidate();
+        scheduleFlush();
     }
 
+    /**
+     * Writes pending cookie changes to disk now
+     */
     public void flush() {
+        synchronized (this) {
+            if (pendingFlush != null) {
+                pendingFlush.cancel(false);
+                pendingFlush = null;
+            }
+        }
         this.webkitCookieManager.flush();
     }
 
-    public void removeAllCookies(ValueCallback<Boolean> callback) {
-        this.webkitCookieManager.removeAllCookies(callback);
+    public void removeAllCookies(final ValueCallback<Boolean> callback) {
+        // The removal is asynchronous, lookups before it completes may still see the old cookies
+        this.webkitCookieManager.removeAllCookies(
+            new ValueCallback<Boolean>() {
+                @Override
+                public void onReceiveValue(Boolean removed) {
+                    invalidate();
+                    if (callback != null) {
+                        callback.onReceiveValue(removed);
+                    }
+                }
+            }
+        );
+        invalidate();
+        scheduleFlush();
+    }
+
+    private void invalidate() {
+        synchronized (cookieCache) {
+            cookieCache.clear();
+            cacheGeneration++;
+        }
+    }
+
+    private synchronized void scheduleFlush() {
+        if (pendingFlush != null) {
+            return;
+        }
+        pendingFlush =
+            flushExecutor.schedule(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (WebkitCookieManagerProxy.this) {
+                            pendingFlush = null;
+                        }
+                        webkitCookieManager.flush();
+                    }
+                },
+                FLUSH_DELAY_MS,
+                TimeUnit.MILLISECONDS
+            );
+    }
+
+    /**
+     * Cookies only depend on the scheme, host, port and path of a URL, so the
+     * query and fragment are left out of the cache key
+     */
+    private static String getCacheKey(String url) {
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query != -1) {
+            end = query;
+        }
+        int fragment = url.indexOf('#');
+        if (fragment != -1 && fragment < end) {
+            end = fragment;
+        }
+        return url.substring(0, end);
     }
 
     public WebkitCookieManagerProxy() {
@@ -46,6 +169,7 @@ public class WebkitCookieManagerProxy extends CookieManager {
 
         // save our url once
         String url = uri.toString();
+        boolean changed = false;
 
         // go over the headers
         for (String headerKey : responseHeaders.keySet()) {
@@ -54,9 +178,15 @@ public class WebkitCookieManagerProxy extends CookieManager {
 
             // process each of the headers
             for (String headerValue : responseHeaders.get(headerKey)) {
-                this.setCookie(url, headerValue);
+                this.webkitCookieManager.setCookie(url, headerValue);
+                changed = true;
             }
         }
+
+        if (changed) {
+            invalidate();
+            scheduleFlush();
+        }
     }
 
     @Override
@@ -83,4 +213,14 @@ public class WebkitCookieManagerProxy extends CookieManager {
         // we don't want anyone to work with this cookie store directly
         throw new UnsupportedOperationException();
     }
+
+    private static class CachedCookie {
+        final String value;
+        final long expiresAt;
+
+        CachedCookie(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.getcapacitor.plugin.http;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Keeps track of the Wi-Fi network so that single requests can be sent over
+ * it with {@link Network#openConnection(java.net.URL)}, while the rest of the
+ * app keeps using the default network.
+ *
+ * The network is requested once, when it is first needed, and the handle is
+ * kept up to date by the network callback until {@link #stop()} is called.
+ */
+public class WifiNetworkTracker {
+    private final ConnectivityManager connectivityManager;
+
+    private ConnectivityManager.NetworkCallback networkCallback;
+    private Network network;
+
+    public WifiNetworkTracker(Context context) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    /**
+     * Returns the Wi-Fi network, waiting for it to become available if needed
+     *
+     * @param timeoutMs how long to wait for the network
+     * @return the Wi-Fi network
+     * @throws IOException if no Wi-Fi network is available in time
+     */
+    public synchronized Network awaitNetwork(long timeoutMs) throws IOException {
+        start();
+
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (network == null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new IOException("Wi-Fi network not available");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for Wi-Fi");
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Releases the network request
+     */
+    public synchronized void stop() {
+        if (networkCallback != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+            network = null;
+        }
+    }
+
+    private void start() {
+        if (networkCallback != null) {
+            return;
+        }
+
+        NetworkRequest networkRequest = new NetworkRequest.Builder().addTransportType(NetworkCapabilities.TRANSPORT_WIFI).build();
+        networkCallback =
+            new ConnectivityManager.NetworkCallback() {
+
+                @Override
+                public void onAvailable(Network available) {
+                    synchronized (WifiNetworkTracker.this) {
+                        network = available;
+                        WifiNetworkTracker.this.notifyAll();
+                    }
+                }
+
+                @Override
+                public void onLost(Network lost) {
+                    synchronized (WifiNetworkTracker.this) {
+                        if (lost.equals(network)) {
+                            network = null;
+                        }
+                    }
+                }
+            };
+        connectivityManager.requestNetwork(networkRequest, networkCallback);
+    }
+}
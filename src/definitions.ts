@@ -1,7 +1,37 @@
+import type { PluginListenerHandle } from '@capacitor/core';
 import { Directory } from '@capacitor/filesystem';
 
 export interface HttpPlugin {
   request(options: HttpOptions): Promise<HttpResponse>;
+  /**
+   * Run several requests concurrently in a single call. Android and web
+   * only
+   */
+  requestBatch(options: HttpBatchOptions): Promise<HttpBatchResult>;
+  /**
+   * Abort a request, download or upload started with a `requestId`. The
+   * aborted call rejects with the code `CANCELED`. Android and web only
+   */
+  cancel(options: HttpCancelOptions): Promise<HttpCancelResult>;
+  /**
+   * Register options shared by many calls, such as a base URL, headers and
+   * timeouts. Calls that name the client with `clientId` only need to send
+   * the options that differ. Android and web only
+   */
+  createClient(options: HttpClientOptions): Promise<HttpCreateClientResult>;
+  /**
+   * Remove a client created with `createClient`. Android and web only
+   */
+  destroyClient(
+    options: HttpDestroyClientOptions,
+  ): Promise<HttpDestroyClientResult>;
+  /**
+   * Change the bandwidth limit of a running download or upload, or the
+   * limit shared by downloads and uploads in the background. Android only
+   */
+  setBandwidthLimit(
+    options: HttpSetBandwidthLimitOptions,
+  ): Promise<HttpSetBandwidthLimitResult>;
   setCookie(options: HttpSetCookieOptions): Promise<void>;
   getCookies(options: HttpGetCookiesOptions): Promise<HttpGetCookiesResult>;
   deleteCookie(options: HttpDeleteCookieOptions): Promise<void>;
@@ -10,10 +40,71 @@ export interface HttpPlugin {
   downloadFile(
     options: HttpDownloadFileOptions,
   ): Promise<HttpDownloadFileResult>;
+  /**
+   * Hit and request counters for the native response caches: the one of
+   * the `okhttp` transport, and the process-wide one if the app enabled
+   * `globalResponseCache`. Android only
+   */
+  getCacheStats(): Promise<HttpCacheStats>;
+  /**
+   * Remove every entry from the native response caches. Android only
+   */
+  clearCache(): Promise<void>;
+  /**
+   * Latency percentiles and byte counts of completed calls, per host.
+   * Android only
+   */
+  getMetrics(options?: HttpGetMetricsOptions): Promise<HttpMetrics>;
+  /**
+   * Resolve and connect to the origins of the given URLs ahead of the
+   * first request to them, in parallel. Android only
+   */
+  preconnect(options: HttpPreconnectOptions): Promise<HttpPreconnectResult>;
+  /**
+   * Listen for progress of downloads and uploads started with the
+   * `progress` option
+   */
+  addListener(
+    eventName: 'progress',
+    listenerFunc: (progress: HttpProgressStatus) => void,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+  /**
+   * Listen for the responses of a batch started with `streamResponses`
+   * as each request completes
+   */
+  addListener(
+    eventName: 'batchResponse',
+    listenerFunc: (event: HttpBatchResponseEvent) => void,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+  /**
+   * Listen for the timings of every completed call. Android only
+   */
+  addListener(
+    eventName: 'metrics',
+    listenerFunc: (event: HttpMetricsEvent) => void,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+  /**
+   * Listen for the results of calls sent from the offline queue. Events
+   * of calls replayed before a listener is added are kept until one is.
+   * Android only
+   */
+  addListener(
+    eventName: 'offlineResponse',
+    listenerFunc: (event: HttpOfflineResponseEvent) => void,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
 }
 
 export interface HttpOptions {
+  /**
+   * Relative to the `baseUrl` of the client named by `clientId`, if it has one
+   */
   url: string;
+  /**
+   * Use the options of a client created with `createClient` for every
+   * option the call doesn't set. Headers and params are merged, the
+   * values of the call take precedence. Android and web only
+   */
+  clientId?: string;
   method?: string;
   params?: HttpParams;
   data?: any;
@@ -31,9 +122,177 @@ export interface HttpOptions {
    * Extra arguments for fetch when running on the web
    */
   webFetchExtra?: RequestInit;
+  /**
+   * Send this request over Wi-Fi even if another network is the default.
+   * Other requests are not affected. Android only
+   */
   bindToWifi?: boolean;
+  /**
+   * Whether a GET response may be served from, and stored in, the
+   * response cache. Defaults to true. The `platform` transport only
+   * caches if the app enabled `globalResponseCache`. Android and web only
+   */
+  useCache?: boolean;
+  /**
+   * How the response body should be returned. `arraybuffer` and `blob`
+   * return the raw bytes as a base64 encoded string. By default the body
+   * is parsed as JSON for `application/json` responses and returned as
+   * text otherwise. Android and web only
+   */
+  responseType?: HttpResponseType;
+  /**
+   * Whether a GET or HEAD request may share the response of an identical
+   * request that is already in flight instead of going to the server
+   * again. Requests with a `requestId` or `timeout` are never shared.
+   * Defaults to false. Android only
+   */
+  coalesce?: boolean;
+  /**
+   * Return JSON response bodies as the unparsed JSON text instead of an
+   * object, so large payloads are parsed only once with `JSON.parse`
+   * instead of being parsed natively and serialized again for the bridge.
+   * Android and web only
+   */
+  rawJson?: boolean;
+  /**
+   * Write response bodies larger than this many bytes to a file in the
+   * cache directory instead of returning them as `data`. Defaults to the
+   * `responseFileThreshold` configured for the app. Android only
+   */
+  responseFileThreshold?: number;
+  /**
+   * Retry failed requests natively. Android only
+   */
+  retry?: HttpRetryOptions;
+  /**
+   * Id to cancel the call with, must be unique among running calls.
+   * Android and web only
+   */
+  requestId?: string;
+  /**
+   * Time in milliseconds the whole call may take, including the time it
+   * is queued and reading the response. The call rejects with the code
+   * `TIMEOUT` when it is exceeded. Android and web only
+   */
+  timeout?: number;
+  /**
+   * Queued calls of a higher priority are started first. Defaults to
+   * `normal` for requests and `background` for downloads and uploads.
+   * Android only
+   */
+  priority?: HttpRequestPriority;
+  /**
+   * Add the timings of the call to the response. Android only
+   */
+  timings?: boolean;
+  /**
+   * The HTTP stack the call is sent with. `okhttp` negotiates HTTP/2, so
+   * parallel calls to a host share one connection. Defaults to the
+   * `transport` configured for the app, `platform` if none. Android only
+   */
+  transport?: HttpTransport;
+  /**
+   * If the device is offline, or the call fails because of the network,
+   * store the call on the device and send it once a network is available.
+   * The call then resolves with `queued` and `queueId`, and the result is
+   * delivered later as an `offlineResponse` event. Only for `request` and
+   * `uploadFile`. Android only
+   */
+  queueOffline?: boolean;
+}
+
+export type HttpTransport = 'platform' | 'okhttp';
+
+export type HttpRequestPriority = 'critical' | 'normal' | 'background';
+
+export interface HttpCancelOptions {
+  requestId: string;
+}
+
+export interface HttpCancelResult {
+  /**
+   * Whether a running call with the id was found
+   */
+  canceled: boolean;
+}
+
+export interface HttpClientOptions extends Partial<HttpOptions> {
+  /**
+   * The id to refer to the client by. A client with the same id is
+   * replaced. Defaults to a generated id
+   */
+  clientId?: string;
+  /**
+   * The URL relative request URLs are resolved against. End it with `/`
+   * to keep its last path segment
+   */
+  baseUrl?: string;
+}
+
+export interface HttpCreateClientResult {
+  clientId: string;
+}
+
+export interface HttpDestroyClientOptions {
+  clientId: string;
 }
 
+export interface HttpDestroyClientResult {
+  /**
+   * Whether a client with the id was found
+   */
+  destroyed: boolean;
+}
+
+export interface HttpSetBandwidthLimitOptions {
+  /**
+   * The new limit in bytes per second, 0 for no limit
+   */
+  maxBytesPerSecond: number;
+  /**
+   * The id of the download or upload to change the limit of. Without it
+   * the limit shared by every download and upload with the `background`
+   * priority is changed
+   */
+  requestId?: string;
+}
+
+export interface HttpSetBandwidthLimitResult {
+  /**
+   * Whether a running call with the id was found
+   */
+  updated: boolean;
+}
+
+export interface HttpRetryOptions {
+  /**
+   * Number of attempts including the first one. Defaults to 3
+   */
+  maxAttempts?: number;
+  /**
+   * Upper bound in milliseconds of the random delay before the second
+   * attempt, doubled for each further attempt. Defaults to 500
+   */
+  initialDelay?: number;
+  /**
+   * Upper bound in milliseconds of any delay, also for Retry-After
+   * headers. Defaults to 30000
+   */
+  maxDelay?: number;
+  /**
+   * Response codes that are retried. Defaults to 408, 429, 500, 502, 503
+   * and 504
+   */
+  statusCodes?: number[];
+  /**
+   * Also retry POST and PATCH requests that may have reached the server.
+   * Defaults to false
+   */
+  retryNonIdempotent?: boolean;
+}
+
+export type HttpResponseType = 'arraybuffer' | 'blob' | 'json' | 'text';
+
 export interface HttpParams {
   [key: string]: string;
 }
@@ -46,6 +305,204 @@ export interface HttpResponse {
   data: any;
   status: number;
   headers: HttpHeaders;
+  /**
+   * Set when the request was made with `timings`
+   */
+  timings?: HttpTimings;
+  /**
+   * Set instead of `data` when the body was larger than
+   * `responseFileThreshold`. The absolute path of the file the body was
+   * written to. The file is deleted when the app starts again, move it to
+   * keep it
+   */
+  path?: string;
+  /**
+   * The size of the body in bytes, set along with `path`
+   */
+  size?: number;
+  /**
+   * Set instead of the response fields when the call was stored in the
+   * offline queue
+   */
+  queued?: boolean;
+  queueId?: string;
+}
+
+/**
+ * Durations in milliseconds of the phases of a call. Phases that didn't
+ * happen, such as DNS and TLS on a reused connection, are 0
+ */
+export interface HttpTimings {
+  /**
+   * Time waiting for a free slot before the call started
+   */
+  queue: number;
+  /**
+   * Time to resolve the host. Only measured with the `okhttp` transport, with
+   * the `platform` transport the lookup is part of connect
+   */
+  dns: number;
+  /**
+   * Time to establish the connection, including TLS
+   */
+  connect: number;
+  tls: number;
+  /**
+   * Time from the connection being ready to the response headers
+   */
+  ttfb: number;
+  /**
+   * Time reading the response body
+   */
+  transfer: number;
+  /**
+   * Time from the call being made to the response body being read
+   */
+  total: number;
+  bytesSent: number;
+  /**
+   * Size of the response body after decompression
+   */
+  bytesReceived: number;
+}
+
+export interface HttpGetMetricsOptions {
+  /**
+   * Clear the metrics after reading them
+   */
+  reset?: boolean;
+}
+
+export interface HttpPreconnectOptions {
+  /**
+   * URLs whose origins to connect to, the path is ignored
+   */
+  urls: string[];
+  /**
+   * The transport the connections are pooled by. Must match the one the
+   * later requests use. Defaults to the `transport` configured for the app
+   */
+  transport?: HttpTransport;
+  priority?: HttpRequestPriority;
+  connectTimeout?: number;
+}
+
+export interface HttpPreconnectResult {
+  /**
+   * One entry per URL, in the order they were given
+   */
+  origins: HttpPreconnectOrigin[];
+}
+
+export interface HttpPreconnectOrigin {
+  url: string;
+  connected: boolean;
+  /**
+   * Why the connection failed
+   */
+  error?: string;
+  /**
+   * Time taken to resolve the host, in milliseconds. Only measured with the
+   * `okhttp` transport, otherwise it is part of connect
+   */
+  dns: number;
+  /**
+   * Time taken to connect, including TLS, in milliseconds
+   */
+  connect: number;
+  tls: number;
+}
+
+export interface HttpMetrics {
+  hosts: { [host: string]: HttpHostMetrics };
+}
+
+export interface HttpPercentiles {
+  p50: number;
+  p95: number;
+  p99: number;
+  max: number;
+}
+
+/**
+ * Aggregated over the most recent 512 calls to the host
+ */
+export interface HttpHostMetrics {
+  count: number;
+  failures: number;
+  bytesSent: number;
+  bytesReceived: number;
+  queue: HttpPercentiles;
+  dns: HttpPercentiles;
+  connect: HttpPercentiles;
+  tls: HttpPercentiles;
+  ttfb: HttpPercentiles;
+  transfer: HttpPercentiles;
+  total: HttpPercentiles;
+}
+
+export interface HttpMetricsEvent {
+  url: string;
+  method: string;
+  timings: HttpTimings;
+  error?: string;
+}
+
+export interface HttpOfflineResponseEvent {
+  /**
+   * The `queueId` the call resolved with when it was queued
+   */
+  queueId: string;
+  /**
+   * `request` or `uploadFile`
+   */
+  method: string;
+  response?: HttpResponse;
+  /**
+   * Set instead of `response` if the call failed for a reason other than
+   * the network
+   */
+  error?: string;
+}
+
+export interface HttpBatchOptions {
+  requests: HttpOptions[];
+  /**
+   * Emit a `batchResponse` event as each request completes, in addition
+   * to resolving with all responses at the end
+   */
+  streamResponses?: boolean;
+  /**
+   * Passed back in `batchResponse` events to tell batches apart
+   */
+  batchId?: string;
+  /**
+   * The client used by requests that don't set their own `clientId`
+   */
+  clientId?: string;
+}
+
+export interface HttpBatchResponse extends Partial<HttpResponse> {
+  /**
+   * Set instead of the response fields if the request failed
+   */
+  error?: string;
+}
+
+export interface HttpBatchResult {
+  /**
+   * One entry per request, in the order of the requests
+   */
+  responses: HttpBatchResponse[];
+}
+
+export interface HttpBatchResponseEvent {
+  batchId?: string;
+  /**
+   * Index of the request in `requests`
+   */
+  index: number;
+  response: HttpBatchResponse;
 }
 
 export interface HttpDownloadFileOptions extends HttpOptions {
@@ -59,6 +516,44 @@ export interface HttpDownloadFileOptions extends HttpOptions {
    * If this option is used, filePath can be a relative path rather than absolute
    */
   fileDirectory?: Directory;
+  /**
+   * Number of parallel range requests used for downloads larger than
+   * `downloadSegmentThreshold`. Downloads split into segments resume where
+   * they stopped if they are retried. With more than 1 the download is
+   * requested without compression, so its size is known up front.
+   * Defaults to the `downloadSegments` configured for the app, which is 1:
+   * a single connection. Android only
+   */
+  segments?: number;
+  /**
+   * Emit `progress` events while the file is downloaded. Android only
+   */
+  progress?: boolean;
+  /**
+   * Compute a checksum of the file while it is downloaded and verify it.
+   * If it doesn't match, the call rejects with the code
+   * `CHECKSUM_MISMATCH` and no file is written. Android only
+   */
+  checksum?: HttpChecksumOptions;
+  /**
+   * Limit the download to this many bytes per second. Downloads with the
+   * `background` priority are also held to the limit configured with
+   * `maxBackgroundBytesPerSecond`. Android only
+   */
+  maxBytesPerSecond?: number;
+}
+
+export interface HttpChecksumOptions {
+  /**
+   * Defaults to `SHA-256`
+   */
+  algorithm?: 'SHA-256' | 'MD5';
+  /**
+   * The expected digest, hex or base64 encoded. Defaults to the value of
+   * the `Digest` or `Content-MD5` response header. Without either the
+   * checksum is only computed
+   */
+  value?: string;
 }
 
 export interface HttpUploadFileOptions extends HttpOptions {
@@ -69,7 +564,7 @@ export interface HttpUploadFileOptions extends HttpOptions {
   /**
    * The field name to upload the file with
    */
-  name: string;
+  name?: string;
   /**
    * For uploading a file on the web, a JavaScript Blob to upload
    */
@@ -78,12 +573,84 @@ export interface HttpUploadFileOptions extends HttpOptions {
    * For uploading a file natively, the path to the file on disk to upload
    */
   filePath?: string;
+  /**
+   * Content to upload as a file instead of `filePath` or `blob`, base64
+   * encoded. Large content can be given as an array of chunks that are
+   * each encoded on their own. It is decoded while it is sent, without
+   * being written to disk
+   */
+  base64Data?: string | string[];
+  /**
+   * The file name sent with `base64Data`. Defaults to `blob`
+   */
+  fileName?: string;
+  /**
+   * Limit the upload to this many bytes per second. Uploads with the
+   * `background` priority are also held to the limit configured with
+   * `maxBackgroundBytesPerSecond`. Android only
+   */
+  maxBytesPerSecond?: number;
+  /**
+   * The content type sent with `base64Data`. Defaults to a type guessed
+   * from `fileName`
+   */
+  contentType?: string;
   /**
    * Optionally, the directory to look for the file in.
    *
    * If this option is used, filePath can be a relative path rather than absolute
    */
   fileDirectory?: Directory;
+  /**
+   * Emit `progress` events while the file is uploaded. Android only
+   */
+  progress?: boolean;
+  /**
+   * Additional files to send in the same multipart request. Android only
+   */
+  files?: HttpUploadFileEntry[];
+  /**
+   * Form fields sent alongside the file(s)
+   */
+  data?: { [key: string]: any };
+  /**
+   * Upload `filePath` in chunks with the tus resumable upload protocol
+   * (https://tus.io) instead of a multipart request. `url` is the tus
+   * creation endpoint. Interrupted uploads continue from the offset the
+   * server received, also when the same file is uploaded again later.
+   * Android only
+   */
+  resumable?: boolean;
+  /**
+   * Size in bytes of each chunk of a resumable upload. Defaults to 4 MB
+   */
+  chunkSize?: number;
+  /**
+   * Upload URL returned by an earlier resumable upload to continue
+   */
+  uploadUrl?: string;
+}
+
+export interface HttpUploadFileEntry {
+  /**
+   * The field name to upload the file with. Defaults to `name` of the
+   * upload options
+   */
+  name?: string;
+  /**
+   * The path to the file on disk to upload
+   */
+  filePath?: string;
+  /**
+   * Optionally, the directory to look for the file in
+   */
+  fileDirectory?: Directory;
+  /**
+   * Base64 encoded content to upload instead of `filePath`
+   */
+  base64Data?: string | string[];
+  fileName?: string;
+  contentType?: string;
 }
 
 export interface HttpCookie {
@@ -118,6 +685,57 @@ export interface HttpGetCookiesResult {
 export interface HttpDownloadFileResult {
   path?: string;
   blob?: Blob;
+  /**
+   * Hex encoded digest of the file, set when downloaded with `checksum`
+   */
+  checksum?: string;
+}
+
+export interface HttpUploadFileResult {
+  /**
+   * For resumable uploads, the URL of the upload on the server
+   */
+  uploadUrl?: string;
+  /**
+   * Set when the upload was stored in the offline queue
+   */
+  queued?: boolean;
+  queueId?: string;
+}
+
+export interface HttpProgressStatus {
+  type: 'DOWNLOAD' | 'UPLOAD';
+  url: string;
+  /**
+   * Bytes transferred so far
+   */
+  bytes: number;
+  /**
+   * Total bytes expected, or -1 if unknown
+   */
+  contentLength: number;
 }
 
-export interface HttpUploadFileResult {}
+export interface HttpCacheStats {
+  /**
+   * Number of requests answered by the cache, including responses
+   * revalidated with a conditional request
+   */
+  hitCount: number;
+  /**
+   * Number of requests that needed a network response
+   */
+  networkCount: number;
+  /**
+   * Total number of requests that went through the cache
+   */
+  requestCount: number;
+  /**
+   * Bytes currently used by the cache
+   */
+  size: number;
+  /**
+   * Maximum number of bytes the cache may use
+   */
+  maxSize: number;
+}
@@ -14,10 +14,26 @@ import {
   HttpDownloadFileResult,
   HttpUploadFileOptions,
   HttpUploadFileResult,
+  HttpCacheStats,
+  HttpMetrics,
+  HttpPreconnectResult,
+  HttpBatchOptions,
+  HttpBatchResponse,
+  HttpBatchResult,
+  HttpCancelOptions,
+  HttpCancelResult,
+  HttpSetBandwidthLimitResult,
+  HttpClientOptions,
+  HttpCreateClientResult,
+  HttpDestroyClientOptions,
+  HttpDestroyClientResult,
 } from './definitions';
 import { WebPlugin } from '@capacitor/core';
 
 export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
+  private controllers = new Map<string, AbortController>();
+  private clients = new Map<string, HttpClientOptions>();
+
   constructor() {
     super({
       name: 'Http',
@@ -46,6 +62,140 @@ export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
     return h;
   }
 
+  private readBlobAsBase64(blob: Blob): Promise<string> {
+    return new Promise((resolve, reject) => {
+      const reader = new FileReader();
+      reader.onload = () => {
+        const dataUrl = reader.result as string;
+        resolve(dataUrl.substr(dataUrl.indexOf(',') + 1));
+      };
+      reader.onerror = () => reject(reader.error);
+      reader.readAsDataURL(blob);
+    });
+  }
+
+  private base64ToBlob(data: string | string[], contentType?: string): Blob {
+    const chunks = Array.isArray(data) ? data : [data];
+    const parts = chunks.map(chunk => {
+      const binary = atob(chunk.substr(chunk.indexOf(',') + 1));
+      const bytes = new Uint8Array(binary.length);
+      for (let i = 0; i < binary.length; i++) {
+        bytes[i] = binary.charCodeAt(i);
+      }
+      return bytes;
+    });
+    return new Blob(parts, contentType ? { type: contentType } : {});
+  }
+
+  /**
+   * Runs the call abortable by its request id and deadline. An aborted call
+   * rejects with the code `CANCELED` or `TIMEOUT`, as on Android
+   */
+  private async trackRequest<T>(
+    options: HttpOptions,
+    fetchOptions: RequestInit,
+    call: () => Promise<T>,
+  ): Promise<T> {
+    if (!options.requestId && !options.timeout) {
+      return call();
+    }
+    if (options.requestId && this.controllers.has(options.requestId)) {
+      throw new Error(
+        `A request with id ${options.requestId} is already running`,
+      );
+    }
+
+    const controller = new AbortController();
+    fetchOptions.signal = controller.signal;
+    if (options.requestId) {
+      this.controllers.set(options.requestId, controller);
+    }
+    let timedOut = false;
+    const timer = options.timeout
+      ? setTimeout(() => {
+          timedOut = true;
+          controller.abort();
+        }, options.timeout)
+      : undefined;
+
+    try {
+      return await call();
+    } catch (e) {
+      if (controller.signal.aborted) {
+        throw Object.assign(
+          new Error(timedOut ? 'Request timed out' : 'Request canceled'),
+          { code: timedOut ? 'TIMEOUT' : 'CANCELED' },
+        );
+      }
+      throw e;
+    } finally {
+      clearTimeout(timer);
+      if (options.requestId) {
+        this.controllers.delete(options.requestId);
+      }
+    }
+  }
+
+  async createClient(
+    options: HttpClientOptions,
+  ): Promise<HttpCreateClientResult> {
+    const clientId =
+      options.clientId || Math.random().toString(36).substr(2) + Date.now();
+    this.clients.set(clientId, { ...options, clientId: undefined });
+    return { clientId };
+  }
+
+  async destroyClient(
+    options: HttpDestroyClientOptions,
+  ): Promise<HttpDestroyClientResult> {
+    return { destroyed: this.clients.delete(options.clientId) };
+  }
+
+  /**
+   * Adds the options of the client profile the call names with `clientId`,
+   * the call's own options take precedence
+   */
+  private applyClient<T extends HttpOptions>(options: T): T {
+    if (!options.clientId) {
+      return options;
+    }
+    const client = this.clients.get(options.clientId);
+    if (!client) {
+      throw new Error(`Unknown client: ${options.clientId}`);
+    }
+
+    const clientHeaders = client.headers || {};
+    const headers: HttpHeaders = {};
+    for (const key of Object.keys(clientHeaders)) {
+      if (!options.headers || !this.getRequestHeader(options.headers, key)) {
+        headers[key] = clientHeaders[key];
+      }
+    }
+    const merged = {
+      ...client,
+      ...options,
+      headers: { ...headers, ...options.headers },
+      params: { ...client.params, ...options.params },
+      url: client.baseUrl
+        ? new URL(options.url || '', client.baseUrl).toString()
+        : options.url,
+    };
+    delete merged.baseUrl;
+    return merged;
+  }
+
+  async cancel(options: HttpCancelOptions): Promise<HttpCancelResult> {
+    const controller = this.controllers.get(options.requestId);
+    if (controller) {
+      controller.abort();
+    }
+    return { canceled: !!controller };
+  }
+
+  async setBandwidthLimit(): Promise<HttpSetBandwidthLimitResult> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
   private makeFetchOptions(
     options: HttpOptions,
     fetchExtra: RequestInit,
@@ -53,6 +203,7 @@ export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
     const req = {
       method: options.method || 'GET',
       headers: options.headers,
+      ...(options.useCache === false ? { cache: 'no-store' } : {}),
       ...(fetchExtra || {}),
     } as RequestInit;
 
@@ -75,17 +226,39 @@ export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
   }
 
   async request(options: HttpOptions): Promise<HttpResponse> {
+    options = this.applyClient(options);
     const fetchOptions = this.makeFetchOptions(options, options.webFetchExtra);
+    return this.trackRequest(options, fetchOptions, () =>
+      this.performRequest(options, fetchOptions),
+    );
+  }
 
+  private async performRequest(
+    options: HttpOptions,
+    fetchOptions: RequestInit,
+  ): Promise<HttpResponse> {
     const ret = await fetch(options.url, fetchOptions);
 
     const contentType = ret.headers.get('content-type');
 
     let data;
-    if (contentType && contentType.indexOf('application/json') === 0) {
-      data = await ret.json();
-    } else {
-      data = await ret.text();
+    switch (options.responseType) {
+      case 'arraybuffer':
+      case 'blob':
+        data = await this.readBlobAsBase64(await ret.blob());
+        break;
+      case 'json':
+        data = options.rawJson ? await ret.text() : await ret.json();
+        break;
+      case 'text':
+        data = await ret.text();
+        break;
+      default:
+        if (contentType && contentType.indexOf('application/json') === 0 && !options.rawJson) {
+          data = await ret.json();
+        } else {
+          data = await ret.text();
+        }
     }
 
     return {
@@ -95,6 +268,33 @@ export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
     };
   }
 
+  async requestBatch(options: HttpBatchOptions): Promise<HttpBatchResult> {
+    const responses = await Promise.all(
+      options.requests.map(async (request, index) => {
+        let response: HttpBatchResponse;
+        try {
+          response = await this.request(
+            options.clientId && !request.clientId
+              ? { ...request, clientId: options.clientId }
+              : request,
+          );
+        } catch (e) {
+          response = { error: e.message || String(e) };
+        }
+        if (options.streamResponses) {
+          this.notifyListeners('batchResponse', {
+            batchId: options.batchId,
+            index,
+            response,
+          });
+        }
+        return response;
+      }),
+    );
+
+    return { responses };
+  }
+
   async setCookie(options: HttpSetCookieOptions) {
     var expires = '';
     if (options.ageDays) {
@@ -148,16 +348,30 @@ export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
   async uploadFile(
     options: HttpUploadFileOptions,
   ): Promise<HttpUploadFileResult> {
+    options = this.applyClient(options);
     const fetchOptions = this.makeFetchOptions(options, options.webFetchExtra);
 
     const formData = new FormData();
-    formData.append(options.name, options.blob);
+    for (const key of Object.keys(options.data || {})) {
+      formData.append(key, options.data[key]);
+    }
+    if (options.blob) {
+      formData.append(options.name || 'file', options.blob);
+    } else if (options.base64Data) {
+      formData.append(
+        options.name || 'file',
+        this.base64ToBlob(options.base64Data, options.contentType),
+        options.fileName || 'blob',
+      );
+    }
 
-    await fetch(options.url, {
-      ...fetchOptions,
-      body: formData,
-      method: 'POST',
-    });
+    await this.trackRequest(options, fetchOptions, () =>
+      fetch(options.url, {
+        ...fetchOptions,
+        body: formData,
+        method: 'POST',
+      }),
+    );
 
     return {};
   }
@@ -165,14 +379,33 @@ export class HttpPluginWeb extends WebPlugin implements HttpPlugin {
   async downloadFile(
     options: HttpDownloadFileOptions,
   ): Promise<HttpDownloadFileResult> {
+    options = this.applyClient(options);
     const fetchOptions = this.makeFetchOptions(options, options.webFetchExtra);
 
-    const ret = await fetch(options.url, fetchOptions);
+    return this.trackRequest(options, fetchOptions, async () => {
+      const ret = await fetch(options.url, fetchOptions);
 
-    const blob = await ret.blob();
+      const blob = await ret.blob();
 
-    return {
-      blob,
-    };
+      return {
+        blob,
+      };
+    });
+  }
+
+  async getCacheStats(): Promise<HttpCacheStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async clearCache(): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getMetrics(): Promise<HttpMetrics> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async preconnect(): Promise<HttpPreconnectResult> {
+    throw this.unimplemented('Not implemented on web.');
   }
 }